@@ -0,0 +1,21 @@
+package study.datajpa.projection;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 다른 속성으로 계산하는 getter (Open Projection의 @Value("#{...}") 대신)
+ * value는 생성된 클래스 안에 그대로 들어가는 자바 식이고 uses에 적은 속성을 필드 이름으로 쓸 수 있다.
+ * 예) @Derived(value = "username + \"  \" + age", uses = {"username", "age"})
+ * 연관관계 경로는 필드 이름이 카멜케이스로 바뀐다. (team.name -> teamName)
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.METHOD)
+public @interface Derived {
+
+    String value();
+
+    String[] uses() default {};
+}
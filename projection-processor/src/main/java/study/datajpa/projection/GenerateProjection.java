@@ -0,0 +1,21 @@
+package study.datajpa.projection;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 프로젝션 인터페이스에 붙이면 컴파일할때 구현 클래스(인터페이스명 + Impl)를 만들어준다.
+ * - getter마다 필드 + 생성자 파라미터 (getUsername -> username 속성, 다른 경로는 @Path)
+ * - @Derived getter는 SpEL 대신 자바 코드로 계산
+ * - 필요한 속성만 뽑는 JPQL 생성자 표현식을 SELECT 상수로 같이 생성
+ *   -> @Query(XxxImpl.SELECT + " where e.username = :username")
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface GenerateProjection {
+
+    //조회 대상 엔티티 (JPQL 엔티티 이름은 클래스 이름)
+    Class<?> entity();
+}
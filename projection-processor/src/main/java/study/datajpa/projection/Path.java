@@ -0,0 +1,17 @@
+package study.datajpa.projection;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * getter 이름과 다른 속성 경로를 읽을때 (예: @Path("team.name") String getTeamName())
+ * JPQL 경로 표현식이라 연관관계는 내부 조인된다.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.METHOD)
+public @interface Path {
+
+    String value();
+}
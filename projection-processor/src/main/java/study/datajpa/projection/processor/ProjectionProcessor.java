@@ -0,0 +1,245 @@
+package study.datajpa.projection.processor;
+
+import study.datajpa.projection.Derived;
+import study.datajpa.projection.GenerateProjection;
+import study.datajpa.projection.Path;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @GenerateProjection 인터페이스의 구현 클래스를 생성
+ *
+ * 예) UsernameOnlyView -> UsernameOnlyViewImpl
+ *   public static final String SELECT = "select new ...UsernameOnlyViewImpl(e.username, e.age) from Member e";
+ *   생성자 (String username, int age), getter는 필드를 그대로 반환, @Derived getter는 자바 식으로 계산
+ *
+ * 런타임에 프록시, SpEL, 리플렉션을 쓰지 않으므로 row가 많아도 일반 DTO 조회와 비용이 같다.
+ */
+@SupportedAnnotationTypes("study.datajpa.projection.GenerateProjection")
+public class ProjectionProcessor extends AbstractProcessor {
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(GenerateProjection.class)) {
+            if (element.getKind() != ElementKind.INTERFACE) {
+                error(element, "@GenerateProjection은 인터페이스에만 붙일 수 있습니다.");
+                continue;
+            }
+            try {
+                generate((TypeElement) element);
+            } catch (IllegalArgumentException e) {
+                error(element, e.getMessage());
+            } catch (IOException e) {
+                error(element, "프로젝션 구현 클래스 생성 실패 : " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    private void generate(TypeElement type) throws IOException {
+        String packageName = ((PackageElement) type.getEnclosingElement()).getQualifiedName().toString();
+        String interfaceName = type.getSimpleName().toString();
+        String className = interfaceName + "Impl";
+        String entityName = entityName(type);
+
+        //필드(속성 경로 -> 필드) : getter 속성 + @Derived uses, 선언 순서 = 생성자 파라미터 순서
+        Map<String, Attribute> attributes = new LinkedHashMap<>();
+        List<ExecutableElement> getters = new ArrayList<>();
+        List<ExecutableElement> derived = new ArrayList<>();
+
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            if (!method.getModifiers().contains(Modifier.ABSTRACT)) {
+                continue; //default, static 메서드는 그대로 사용
+            }
+            if (!method.getParameters().isEmpty()) {
+                throw new IllegalArgumentException("파라미터가 있는 메서드는 지원하지 않습니다 : " + method);
+            }
+            Derived derivedAnnotation = method.getAnnotation(Derived.class);
+            if (derivedAnnotation != null) {
+                derived.add(method);
+                continue;
+            }
+            Path path = method.getAnnotation(Path.class);
+            String attributePath = path != null ? path.value() : propertyName(method);
+            attributeType(type, attributePath); //엔티티에 없는 경로면 런타임 JPQL 오류 대신 컴파일 오류
+            attributes.put(attributePath, new Attribute(attributePath, method.getReturnType().toString()));
+            getters.add(method);
+        }
+        for (ExecutableElement method : derived) {
+            for (String use : method.getAnnotation(Derived.class).uses()) {
+                if (!attributes.containsKey(use)) {
+                    attributes.put(use, new Attribute(use, attributeType(type, use)));
+                }
+            }
+        }
+
+        try (Writer writer = processingEnv.getFiler().createSourceFile(packageName + "." + className, type).openWriter()) {
+            writer.write(source(packageName, interfaceName, className, entityName, attributes, getters, derived));
+        }
+    }
+
+    private String source(String packageName, String interfaceName, String className, String entityName,
+                          Map<String, Attribute> attributes, List<ExecutableElement> getters,
+                          List<ExecutableElement> derived) {
+        StringBuilder select = new StringBuilder();
+        StringBuilder fields = new StringBuilder();
+        StringBuilder parameters = new StringBuilder();
+        StringBuilder assignments = new StringBuilder();
+        for (Attribute attribute : attributes.values()) {
+            if (select.length() > 0) {
+                select.append(", ");
+                parameters.append(", ");
+            }
+            select.append("e.").append(attribute.path);
+            fields.append("    private final ").append(attribute.type).append(' ').append(attribute.field).append(";\n");
+            parameters.append(attribute.type).append(' ').append(attribute.field);
+            assignments.append("        this.").append(attribute.field).append(" = ").append(attribute.field).append(";\n");
+        }
+
+        StringBuilder sb = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            sb.append("package ").append(packageName).append(";\n\n");
+        }
+        sb.append("//ProjectionProcessor가 생성한 코드 (직접 수정하지 말것)\n");
+        sb.append("public final class ").append(className).append(" implements ").append(interfaceName).append(" {\n\n");
+        sb.append("    public static final String SELECT = \"select new ")
+                .append(packageName.isEmpty() ? "" : packageName + ".").append(className)
+                .append('(').append(select).append(") from ").append(entityName).append(" e\";\n\n");
+        sb.append(fields).append('\n');
+        sb.append("    public ").append(className).append('(').append(parameters).append(") {\n")
+                .append(assignments).append("    }\n");
+
+        for (ExecutableElement getter : getters) {
+            Path path = getter.getAnnotation(Path.class);
+            String attributePath = path != null ? path.value() : propertyName(getter);
+            sb.append('\n').append("    @Override\n")
+                    .append("    public ").append(getter.getReturnType()).append(' ').append(getter.getSimpleName()).append("() {\n")
+                    .append("        return ").append(attributes.get(attributePath).field).append(";\n")
+                    .append("    }\n");
+        }
+        for (ExecutableElement method : derived) {
+            sb.append('\n').append("    @Override\n")
+                    .append("    public ").append(method.getReturnType()).append(' ').append(method.getSimpleName()).append("() {\n")
+                    .append("        return ").append(method.getAnnotation(Derived.class).value()).append(";\n")
+                    .append("    }\n");
+        }
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    //@GenerateProjection(entity = Member.class)의 클래스 이름 (컴파일 중이라 Class로 꺼낼 수 없어서 TypeMirror로 읽는다)
+    private String entityName(TypeElement type) {
+        TypeElement entity = entityType(type);
+        return entity.getSimpleName().toString();
+    }
+
+    private TypeElement entityType(TypeElement type) {
+        for (AnnotationMirror mirror : type.getAnnotationMirrors()) {
+            if (!mirror.getAnnotationType().toString().equals(GenerateProjection.class.getName())) {
+                continue;
+            }
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : mirror.getElementValues().entrySet()) {
+                if (entry.getKey().getSimpleName().contentEquals("entity")) {
+                    return (TypeElement) ((DeclaredType) entry.getValue().getValue()).asElement();
+                }
+            }
+        }
+        throw new IllegalArgumentException("entity를 찾을 수 없습니다.");
+    }
+
+    //@Derived uses에만 있는 속성은 엔티티 필드 타입을 따라간다. (team.name 처럼 경로면 한단계씩)
+    private String attributeType(TypeElement type, String path) {
+        TypeElement current = entityType(type);
+        TypeMirror result = null;
+        for (String name : path.split("\\.")) {
+            if (current == null) {
+                throw new IllegalArgumentException("경로를 찾을 수 없습니다 : " + path);
+            }
+            result = fieldType(current, name);
+            if (result == null) {
+                throw new IllegalArgumentException(current.getSimpleName() + "에 " + name + " 필드가 없습니다. (" + path + ")");
+            }
+            current = result instanceof DeclaredType ? (TypeElement) ((DeclaredType) result).asElement() : null;
+        }
+        return result.toString();
+    }
+
+    private TypeMirror fieldType(TypeElement type, String name) {
+        for (Element field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            if (field.getSimpleName().contentEquals(name)) {
+                return field.asType();
+            }
+        }
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass instanceof DeclaredType) {
+            return fieldType((TypeElement) ((DeclaredType) superclass).asElement(), name);
+        }
+        return null;
+    }
+
+    private String propertyName(ExecutableElement getter) {
+        String name = getter.getSimpleName().toString();
+        String property;
+        if (name.startsWith("get") && name.length() > 3) {
+            property = name.substring(3);
+        } else if (name.startsWith("is") && name.length() > 2) {
+            property = name.substring(2);
+        } else {
+            throw new IllegalArgumentException("getter 이름이 아닙니다 : " + name);
+        }
+        return Character.toLowerCase(property.charAt(0)) + property.substring(1);
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    //속성 경로 하나 (team.name -> 필드 teamName)
+    private static class Attribute {
+        private final String path;
+        private final String type;
+        private final String field;
+
+        private Attribute(String path, String type) {
+            this.path = path;
+            this.type = type;
+            this.field = fieldName(path);
+        }
+
+        private static String fieldName(String path) {
+            String[] names = path.split("\\.");
+            StringBuilder sb = new StringBuilder(names[0]);
+            for (int i = 1; i < names.length; i++) {
+                sb.append(Character.toUpperCase(names[i].charAt(0))).append(names[i].substring(1));
+            }
+            return sb.toString();
+        }
+    }
+}
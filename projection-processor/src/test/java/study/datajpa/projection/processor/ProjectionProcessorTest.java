@@ -0,0 +1,191 @@
+package study.datajpa.projection.processor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import study.datajpa.projection.GenerateProjection;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 프로세서를 실제 javac(javax.tools)로 돌려서 생성 코드와 컴파일 오류를 확인
+ * 엔티티는 JPA 없이 필드만 있는 클래스로 흉내낸다. (프로세서는 필드 이름, 타입만 본다)
+ */
+class ProjectionProcessorTest {
+
+    private static final String MEMBER = "package sample;\n" +
+            "public class Member {\n" +
+            "    private String username;\n" +
+            "    private int age;\n" +
+            "    private Team team;\n" +
+            "}\n";
+    private static final String TEAM = "package sample;\n" +
+            "public class Team {\n" +
+            "    private String name;\n" +
+            "}\n";
+
+    @TempDir Path output;
+
+    //getter, @Path, @Derived -> 필드 + 생성자 + SELECT 상수
+    @Test
+    public void generateProjection() throws Exception {
+        Result result = compile("sample.MemberView", "package sample;\n" +
+                "import study.datajpa.projection.*;\n" +
+                "@GenerateProjection(entity = Member.class)\n" +
+                "public interface MemberView {\n" +
+                "    String getUsername();\n" +
+                "    @Path(\"team.name\") String getTeamName();\n" +
+                "    @Derived(value = \"username + \\\"  \\\" + age\", uses = {\"username\", \"age\"}) String getLabel();\n" +
+                "}\n");
+
+        assertThat(result.errors()).isEmpty();
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{output.toUri().toURL()}, getClass().getClassLoader())) {
+            Class<?> impl = classLoader.loadClass("sample.MemberViewImpl");
+            assertThat(impl.getField("SELECT").get(null))
+                    .isEqualTo("select new sample.MemberViewImpl(e.username, e.team.name, e.age) from Member e");
+
+            Object view = impl.getConstructor(String.class, String.class, int.class).newInstance("member1", "teamA", 10);
+            assertThat(impl.getMethod("getUsername").invoke(view)).isEqualTo("member1");
+            assertThat(impl.getMethod("getTeamName").invoke(view)).isEqualTo("teamA");
+            assertThat(impl.getMethod("getLabel").invoke(view)).isEqualTo("member1  10");
+        }
+    }
+
+    @Test
+    public void notInterface() throws Exception {
+        Result result = compile("sample.MemberView", "package sample;\n" +
+                "import study.datajpa.projection.*;\n" +
+                "@GenerateProjection(entity = Member.class)\n" +
+                "public class MemberView {\n" +
+                "}\n");
+
+        assertThat(result.errors()).anyMatch(message -> message.contains("인터페이스에만"));
+    }
+
+    //엔티티에 없는 경로는 런타임 JPQL 오류가 아니라 컴파일 오류
+    @Test
+    public void unknownPath() throws Exception {
+        Result result = compile("sample.MemberView", "package sample;\n" +
+                "import study.datajpa.projection.*;\n" +
+                "@GenerateProjection(entity = Member.class)\n" +
+                "public interface MemberView {\n" +
+                "    @Path(\"team.title\") String getTeamName();\n" +
+                "}\n");
+
+        assertThat(result.errors()).anyMatch(message -> message.contains("Team에 title 필드가 없습니다."));
+    }
+
+    @Test
+    public void unknownUses() throws Exception {
+        Result result = compile("sample.MemberView", "package sample;\n" +
+                "import study.datajpa.projection.*;\n" +
+                "@GenerateProjection(entity = Member.class)\n" +
+                "public interface MemberView {\n" +
+                "    @Derived(value = \"nickname\", uses = {\"nickname\"}) String getLabel();\n" +
+                "}\n");
+
+        assertThat(result.errors()).anyMatch(message -> message.contains("Member에 nickname 필드가 없습니다."));
+    }
+
+    @Test
+    public void methodWithParameter() throws Exception {
+        Result result = compile("sample.MemberView", "package sample;\n" +
+                "import study.datajpa.projection.*;\n" +
+                "@GenerateProjection(entity = Member.class)\n" +
+                "public interface MemberView {\n" +
+                "    String getUsername(int index);\n" +
+                "}\n");
+
+        assertThat(result.errors()).anyMatch(message -> message.contains("파라미터가 있는 메서드는 지원하지 않습니다"));
+    }
+
+    //Member, Team + 프로젝션 인터페이스를 ProjectionProcessor와 함께 컴파일 (클래스, 생성 소스는 output에)
+    private Result compile(String className, String source) throws IOException {
+        Map<String, String> sources = new LinkedHashMap<>();
+        sources.put("sample.Member", MEMBER);
+        sources.put("sample.Team", TEAM);
+        sources.put(className, source);
+
+        List<JavaFileObject> files = new ArrayList<>();
+        sources.forEach((name, code) -> files.add(new SourceFile(name, code)));
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, Locale.getDefault(), null)) {
+            fileManager.setLocation(StandardLocation.CLASS_OUTPUT, Collections.singletonList(output.toFile()));
+            Path generated = Files.createDirectories(output.resolve("generated"));
+            fileManager.setLocation(StandardLocation.SOURCE_OUTPUT, Collections.singletonList(generated.toFile()));
+
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+                    Arrays.asList("-classpath", annotationClasspath(), "-encoding", "UTF-8"),
+                    null, files);
+            task.setProcessors(Collections.singletonList(new ProjectionProcessor()));
+            task.call();
+        }
+        return new Result(diagnostics.getDiagnostics());
+    }
+
+    //@GenerateProjection, @Path, @Derived가 있는 위치 (이 모듈의 main 출력)
+    private String annotationClasspath() {
+        try {
+            return Paths.get(GenerateProjection.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class Result {
+        private final List<Diagnostic<? extends JavaFileObject>> diagnostics;
+
+        private Result(List<Diagnostic<? extends JavaFileObject>> diagnostics) {
+            this.diagnostics = diagnostics;
+        }
+
+        private List<String> errors() {
+            List<String> errors = new ArrayList<>();
+            for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics) {
+                if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                    errors.add(diagnostic.getMessage(Locale.getDefault()));
+                }
+            }
+            return errors;
+        }
+    }
+
+    private static class SourceFile extends SimpleJavaFileObject {
+        private final String code;
+
+        private SourceFile(String className, String code) {
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.code = code;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return code;
+        }
+    }
+}
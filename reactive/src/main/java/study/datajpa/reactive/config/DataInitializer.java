@@ -0,0 +1,51 @@
+package study.datajpa.reactive.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import study.datajpa.reactive.entity.Member;
+import study.datajpa.reactive.entity.Team;
+import study.datajpa.reactive.repository.ReactiveMemberRepository;
+import study.datajpa.reactive.repository.ReactiveTeamRepository;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 메모리 DB라 기동할때마다 비어있으므로 부하 테스트용 회원을 넣어둔다.
+ * 서블릿 버전 MemberController.init()과 같은 데이터 (user0 ~ user99, 팀 10개)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DataInitializer implements ApplicationRunner {
+
+    private static final int TEAMS = 10;
+
+    private final ReactiveMemberRepository memberRepository;
+    private final ReactiveTeamRepository teamRepository;
+
+    @Value("${reactive.init-data.members:100}")
+    private int members;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (members <= 0) {
+            return;
+        }
+        //기동 시점이라 블로킹해도 됨 (요청 처리 스레드가 아님)
+        List<Team> teams = Flux.range(0, TEAMS)
+                .concatMap(i -> teamRepository.save(new Team("team" + i)))
+                .collectList()
+                .block(Duration.ofSeconds(30));
+        Long saved = Flux.range(0, members)
+                .concatMap(i -> memberRepository.save(new Member("user" + i, i, teams.get(i % TEAMS).getId())))
+                .count()
+                .block(Duration.ofSeconds(30));
+        log.info("초기 데이터 team = {}, member = {}", teams.size(), saved);
+    }
+}
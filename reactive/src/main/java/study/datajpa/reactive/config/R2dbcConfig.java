@@ -0,0 +1,34 @@
+package study.datajpa.reactive.config;
+
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.r2dbc.config.AbstractR2dbcConfiguration;
+import org.springframework.data.r2dbc.connectionfactory.init.ConnectionFactoryInitializer;
+import org.springframework.data.r2dbc.connectionfactory.init.ResourceDatabasePopulator;
+import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
+
+/**
+ * 스프링 부트 2.2에는 R2DBC 자동 설정이 없으므로 직접 등록
+ * H2 메모리 DB (R2DBC 드라이버), 기동시 schema.sql 실행
+ */
+@Configuration
+@EnableR2dbcRepositories(basePackages = "study.datajpa.reactive.repository")
+public class R2dbcConfig extends AbstractR2dbcConfiguration {
+
+    @Override
+    @Bean
+    public ConnectionFactory connectionFactory() {
+        return H2ConnectionFactory.inMemory("datajpa");
+    }
+
+    @Bean
+    public ConnectionFactoryInitializer connectionFactoryInitializer(ConnectionFactory connectionFactory) {
+        ConnectionFactoryInitializer initializer = new ConnectionFactoryInitializer();
+        initializer.setConnectionFactory(connectionFactory);
+        initializer.setDatabasePopulator(new ResourceDatabasePopulator(new ClassPathResource("schema.sql")));
+        return initializer;
+    }
+}
@@ -0,0 +1,86 @@
+package study.datajpa.reactive.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import study.datajpa.reactive.dto.MemberDto;
+import study.datajpa.reactive.entity.Member;
+import study.datajpa.reactive.repository.ReactiveMemberRepository;
+
+import java.util.List;
+
+/**
+ * MemberController(서블릿)와 같은 URL을 논블로킹으로 처리
+ * 요청마다 스레드를 잡고 기다리지 않고 DB 응답이 오면 이벤트 루프가 이어서 처리하므로
+ * 적은 스레드로 많은 동시 요청을 받는다. (비교 : ThroughputComparisonTest)
+ * 주의 : r2dbc-h2는 임베디드 H2 엔진을 구독한 스레드(이벤트 루프)에서 그대로 실행한다.
+ *       진짜 논블로킹 I/O가 아니므로 이 DB로 잰 숫자는 네트워크 DB 드라이버(r2dbc-postgresql 등)의 처리량을 보여주지 않는다.
+ */
+@RestController
+@RequiredArgsConstructor
+public class ReactiveMemberController {
+
+    private static final int MAX_PAGE_SIZE = 2000;
+
+    private final ReactiveMemberRepository memberRepository;
+
+    @GetMapping("/members/{id}")
+    public Mono<String> findMember(@PathVariable("id") Long id) {
+        return memberRepository.findById(id)
+                .map(Member::getUsername)
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)));
+    }
+
+    //서블릿 버전의 /members?page=0&size=5 (Page<MemberDto>) 와 같은 응답
+    @GetMapping("/members")
+    public Mono<Page<MemberDto>> list(@RequestParam(value = "page", defaultValue = "0") int page,
+                                      @RequestParam(value = "size", defaultValue = "5") int size) {
+        PageRequest pageRequest = PageRequest.of(Math.max(page, 0), Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+        return Mono.zip(
+                memberRepository.findMemberDtoPage(pageRequest.getPageSize(), pageRequest.getOffset()).collectList(),
+                memberRepository.count())
+                .map(tuple -> new PageImpl<>(tuple.getT1(), pageRequest, tuple.getT2()));
+    }
+
+    @GetMapping(value = "/members", params = "username")
+    public Flux<MemberDto> findByUsername(@RequestParam("username") String username) {
+        return memberRepository.findByUsername(username).map(this::toDto);
+    }
+
+    @GetMapping(value = "/members", params = "names")
+    public Flux<MemberDto> findByNames(@RequestParam("names") List<String> names) {
+        return memberRepository.findByNames(names).map(this::toDto);
+    }
+
+    //서블릿 버전의 findByAge(Page)처럼 전체 건수도 같이 (목록과 count를 동시에 실행)
+    @GetMapping(value = "/members", params = "age")
+    public Mono<Page<MemberDto>> findByAge(@RequestParam("age") int age,
+                                           @RequestParam(value = "page", defaultValue = "0") int page,
+                                           @RequestParam(value = "size", defaultValue = "5") int size) {
+        PageRequest pageRequest = PageRequest.of(Math.max(page, 0), Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+        return Mono.zip(
+                memberRepository.findByAge(age, pageRequest.getPageSize(), pageRequest.getOffset()).map(this::toDto).collectList(),
+                memberRepository.countByAge(age))
+                .map(tuple -> new PageImpl<>(tuple.getT1(), pageRequest, tuple.getT2()));
+    }
+
+    /**
+     * 전체 회원 스트리밍 (서블릿 버전의 /members/export)
+     * 한줄에 json 하나씩 읽히는 대로 내보내고, 클라이언트가 느리면 요청량(backpressure)만큼만 DB에서 읽는다.
+     */
+    @GetMapping(value = "/members/export", produces = MediaType.APPLICATION_STREAM_JSON_VALUE)
+    public Flux<MemberDto> export() {
+        return memberRepository.findMemberDto();
+    }
+
+    private MemberDto toDto(Member member) {
+        return new MemberDto(member.getId(), member.getUsername(), null);
+    }
+}
@@ -0,0 +1,16 @@
+package study.datajpa.reactive.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+//조인 쿼리 결과를 바로 담는 DTO (컬럼명 team_name -> teamName)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MemberDto {
+
+    private Long id;
+    private String username;
+    private String teamName;
+}
@@ -0,0 +1,34 @@
+package study.datajpa.reactive.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * R2DBC는 연관관계 매핑, 지연로딩이 없으므로 팀은 FK 값(teamId)만 들고 있고 팀 이름이 필요하면 조인 쿼리로 가져온다.
+ */
+@Table("member")
+@Getter @Setter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class Member {
+
+    @Id
+    @Column("member_id")
+    private Long id;
+    private String username;
+    private int age;
+    @Column("team_id")
+    private Long teamId;
+
+    public Member(String username, int age, Long teamId) {
+        this.username = username;
+        this.age = age;
+        this.teamId = teamId;
+    }
+}
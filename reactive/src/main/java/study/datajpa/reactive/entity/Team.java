@@ -0,0 +1,25 @@
+package study.datajpa.reactive.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+@Table("team")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class Team {
+
+    @Id
+    @Column("team_id")
+    private Long id;
+    private String name;
+
+    public Team(String name) {
+        this.name = name;
+    }
+}
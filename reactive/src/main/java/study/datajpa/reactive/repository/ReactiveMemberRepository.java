@@ -0,0 +1,41 @@
+package study.datajpa.reactive.repository;
+
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import study.datajpa.reactive.dto.MemberDto;
+import study.datajpa.reactive.entity.Member;
+
+import java.util.Collection;
+
+/**
+ * MemberRepository(JPA)의 조회 메서드를 논블로킹으로 옮긴 버전
+ * spring-data-r2dbc 1.0은 메서드 이름으로 쿼리 생성을 지원하지 않으므로 전부 @Query로 직접 작성한다.
+ * 결과는 Flux/Mono로 반환하고 구독해야 쿼리가 실행된다.
+ */
+public interface ReactiveMemberRepository extends ReactiveCrudRepository<Member, Long> {
+
+    @Query("select * from member where username = :username")
+    Flux<Member> findByUsername(@Param("username") String username);
+
+    //컬렉션 파라미터는 in 절로 펼쳐진다.
+    @Query("select * from member where username in (:names)")
+    Flux<Member> findByNames(@Param("names") Collection<String> names);
+
+    //Pageable을 받을 수 없으므로 limit/offset을 직접 넘기고 count는 따로 조회
+    @Query("select * from member where age = :age order by member_id limit :limit offset :offset")
+    Flux<Member> findByAge(@Param("age") int age, @Param("limit") int limit, @Param("offset") long offset);
+
+    @Query("select count(*) from member where age = :age")
+    Mono<Long> countByAge(@Param("age") int age);
+
+    //연관관계가 없으니 팀 이름은 조인해서 DTO로 바로 받는다.
+    @Query("select m.member_id as id, m.username, t.name as team_name from member m left join team t on m.team_id = t.team_id order by m.member_id")
+    Flux<MemberDto> findMemberDto();
+
+    @Query("select m.member_id as id, m.username, t.name as team_name from member m left join team t on m.team_id = t.team_id"
+            + " order by m.member_id limit :limit offset :offset")
+    Flux<MemberDto> findMemberDtoPage(@Param("limit") int limit, @Param("offset") long offset);
+}
@@ -0,0 +1,7 @@
+package study.datajpa.reactive.repository;
+
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import study.datajpa.reactive.entity.Team;
+
+public interface ReactiveTeamRepository extends ReactiveCrudRepository<Team, Long> {
+}
@@ -0,0 +1,16 @@
+-- R2DBC는 스키마 생성을 하지 않으므로 기동시 직접 실행 (R2dbcConfig)
+-- id는 R2DBC가 insert 후 생성된 키를 받아오도록 auto_increment
+create table if not exists team (
+    team_id bigint auto_increment primary key,
+    name varchar(255)
+);
+
+create table if not exists member (
+    member_id bigint auto_increment primary key,
+    username varchar(255),
+    age integer not null,
+    team_id bigint references team (team_id)
+);
+
+create index if not exists idx_member_username on member (username);
+create index if not exists idx_member_age on member (age);
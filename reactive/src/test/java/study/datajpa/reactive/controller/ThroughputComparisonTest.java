@@ -0,0 +1,71 @@
+package study.datajpa.reactive.controller;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 서블릿 버전 vs 리액티브 버전 처리량 비교 (기본은 건너뜀)
+ * 클라이언트는 WebClient라서 스레드 몇개로 동시 요청 1만개를 만들 수 있다. (양쪽에 같은 클라이언트)
+ *   리액티브 : ./gradlew :reactive:test --tests '*ThroughputComparisonTest' -DloadTest=true
+ *   서블릿   : ./gradlew bootRun --args='--datajpa.near-cache.enabled=false' 로 8080에 띄우고 (MemberController.init()으로 user0 ~ user99 생성)
+ *              (서블릿 앱의 /members/{id}는 near cache를 거치므로 끄지 않으면 캐시 히트만 재게 됨)
+ *              ./gradlew :reactive:test --tests '*ThroughputComparisonTest' -DloadTest=true -DloadTest.baseUrl=http://localhost:8080
+ * 동시 요청 수 : -DloadTest.concurrency (기본 10000), 총 요청 수 : -DloadTest.requests (기본 동시 요청 수의 5배)
+ * 두 앱 모두 /members/{id}를 호출하고 id는 1 ~ 100을 돌려가며 쓴다.
+ *
+ * 실패(타임아웃, 5xx)는 세기만 하고 테스트를 깨지 않는다. 서블릿 앱은 동시 요청이 커넥션 풀보다 훨씬 많으면
+ * Hikari connection-timeout(3초)에 걸려 실패하는게 정상이고, 그 실패율도 비교 대상이다.
+ * 주의 : 리액티브 앱의 r2dbc-h2는 임베디드 엔진을 이벤트 루프 스레드에서 그대로 실행하므로
+ *       여기서 나온 숫자는 논블로킹 I/O의 효과가 아니다. 의미있는 비교는 네트워크 DB(r2dbc-postgresql 등)로 할것
+ */
+@EnabledIfSystemProperty(named = "loadTest", matches = "true")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ThroughputComparisonTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ThroughputComparisonTest.class);
+
+    @LocalServerPort int port;
+
+    @Test
+    public void findMemberUnderLoad() {
+        int concurrency = Integer.getInteger("loadTest.concurrency", 10_000);
+        int requests = Integer.getInteger("loadTest.requests", concurrency * 5);
+        String baseUrl = System.getProperty("loadTest.baseUrl", "http://localhost:" + port);
+
+        WebClient client = WebClient.create(baseUrl);
+        AtomicInteger failed = new AtomicInteger();
+
+        long start = System.nanoTime();
+        Long completed = Flux.range(0, requests)
+                .flatMap(i -> client.get().uri("/members/{id}", i % 100 + 1)
+                        .retrieve()
+                        .bodyToMono(String.class)
+                        .onErrorResume(e -> {
+                            failed.incrementAndGet();
+                            return Mono.empty();
+                        }), concurrency)
+                .count()
+                .block(Duration.ofMinutes(10));
+        long nanos = System.nanoTime() - start;
+
+        log.info("target = {}, requests = {}, concurrency = {}, failed = {} ({}%), requests/sec = {}, elapsed(ms) = {}",
+                baseUrl, requests, concurrency, failed.get(), failed.get() * 100.0 / requests,
+                requests * 1_000_000_000L / Math.max(nanos, 1), TimeUnit.NANOSECONDS.toMillis(nanos));
+
+        //성공 + 실패 = 전체 요청 (응답이 안 온 요청이 없어야함)
+        assertThat(completed + failed.get()).isEqualTo(requests);
+    }
+}
@@ -0,0 +1,64 @@
+package study.datajpa.reactive.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import study.datajpa.reactive.dto.MemberDto;
+import study.datajpa.reactive.entity.Member;
+import study.datajpa.reactive.entity.Team;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest(properties = "reactive.init-data.members=0")
+class ReactiveMemberRepositoryTest {
+
+    @Autowired ReactiveMemberRepository memberRepository;
+    @Autowired ReactiveTeamRepository teamRepository;
+
+    @Test
+    public void findByUsernameAndNames() {
+        Flux<Member> saved = Flux.just(new Member("rAAA", 10, null), new Member("rBBB", 20, null))
+                .concatMap(memberRepository::save);
+        StepVerifier.create(saved).expectNextCount(2).verifyComplete();
+
+        StepVerifier.create(memberRepository.findByUsername("rAAA"))
+                .assertNext(member -> assertThat(member.getAge()).isEqualTo(10))
+                .verifyComplete();
+
+        StepVerifier.create(memberRepository.findByNames(Arrays.asList("rAAA", "rBBB")).map(Member::getUsername).sort())
+                .expectNext("rAAA", "rBBB")
+                .verifyComplete();
+    }
+
+    @Test
+    public void findByAgePaging() {
+        StepVerifier.create(Flux.range(0, 5).concatMap(i -> memberRepository.save(new Member("page" + i, 77, null))))
+                .expectNextCount(5)
+                .verifyComplete();
+
+        //두번째 페이지 (size 2) -> page2, page3
+        StepVerifier.create(memberRepository.findByAge(77, 2, 2).map(Member::getUsername))
+                .expectNext("page2", "page3")
+                .verifyComplete();
+        StepVerifier.create(memberRepository.countByAge(77))
+                .expectNext(5L)
+                .verifyComplete();
+    }
+
+    @Test
+    public void findMemberDtoWithTeamName() {
+        Team team = teamRepository.save(new Team("dtoTeam")).block();
+        Member member = memberRepository.save(new Member("dtoMember", 30, team.getId())).block();
+
+        StepVerifier.create(memberRepository.findMemberDto().filter(dto -> dto.getId().equals(member.getId())))
+                .assertNext(dto -> {
+                    assertThat(dto.getUsername()).isEqualTo("dtoMember");
+                    assertThat(dto.getTeamName()).isEqualTo("dtoTeam");
+                })
+                .verifyComplete();
+    }
+}
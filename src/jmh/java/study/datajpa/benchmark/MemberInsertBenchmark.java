@@ -0,0 +1,91 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.DataJpaApplication;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 대량 저장 비교 (예전 설정 vs 지금 설정)
+ * baseline : 시퀀스 allocationSize 1 (orm-insert-baseline.xml), JDBC batch 끔, save()를 한건씩
+ *            -> insert 한건마다 시퀀스 조회 + insert 한번씩
+ * batched  : 지금 설정 (allocationSize 50, batch_size 100, order_inserts) + saveAllInBatch()
+ * 매 호출마다 rows건을 insert 하고 flush 후 롤백하므로 DB에 데이터가 쌓이지 않는다.
+ * 결과는 ops/ms(호출당 rows건) 이므로 rows/sec = 처리량 * rows * 1000
+ *
+ * 실행 : ./gradlew jmh  (임베디드 H2 메모리 DB)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MemberInsertBenchmark {
+
+    @Param({"baseline", "batched"})
+    public String mode;
+
+    @Param({"1000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private TransactionTemplate tx;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<String> properties = new ArrayList<>();
+        properties.add("spring.datasource.url=jdbc:h2:mem:insert-" + mode + ";DB_CLOSE_DELAY=-1");
+        properties.add("datajpa.schema.explain-check=false");
+        properties.add("decorator.datasource.enabled=false"); //p6spy 로그가 측정에 끼지 않도록
+        properties.add("logging.level.org.hibernate.SQL=warn");
+        if ("baseline".equals(mode)) {
+            properties.add("spring.jpa.mapping-resources=META-INF/orm-insert-baseline.xml");
+            //DB 시퀀스는 increment by 50이므로 allocationSize 1과 달라도 그대로 쓰도록
+            properties.add("spring.jpa.properties.hibernate.id.sequence.increment_size_mismatch_strategy=none");
+            properties.add("spring.jpa.properties.hibernate.jdbc.batch_size=0");
+            properties.add("spring.jpa.properties.hibernate.order_inserts=false");
+        }
+
+        context = new SpringApplicationBuilder(DataJpaApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(properties.toArray(new String[0]))
+                .run();
+        memberRepository = context.getBean(MemberRepository.class);
+        tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int insert() {
+        return tx.execute(status -> {
+            int saved;
+            if ("baseline".equals(mode)) {
+                for (int i = 0; i < rows; i++) {
+                    memberRepository.save(new Member("member" + i, i % 100));
+                }
+                memberRepository.flush();
+                saved = rows;
+            } else {
+                List<Member> members = new ArrayList<>(rows);
+                for (int i = 0; i < rows; i++) {
+                    members.add(new Member("member" + i, i % 100));
+                }
+                saved = memberRepository.saveAllInBatch(members); //batch_size마다 flush + clear
+            }
+            status.setRollbackOnly(); //insert까지만 재고 데이터는 남기지 않음
+            return saved;
+        });
+    }
+}
@@ -0,0 +1,205 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.DataJpaApplication;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * N + 1 문제를 푸는 여러 조회 방법 비교
+ * 모든 변형은 회원 + 팀 이름까지 읽는 같은 일을 한다. (팀 이름을 실제로 꺼내봐야 지연로딩 쿼리가 나감)
+ *
+ * 전체 조회 계열 : lazyNPlusOne(기준) / fetchJoin / entityGraphFindAll / entityGraphJpql / dtoProjection / nativeProjection
+ * username 조회 계열 : lazyByUsername(기준) / entityGraphByUsername / namedEntityGraphByUsername / interfaceProjection
+ *   -> username은 USERNAME_GROUPS개를 돌려가며 쓰므로 전체의 1/USERNAME_GROUPS 만큼 조회된다.
+ * 읽기 전용 비교 : fetchJoin(readOnly 트랜잭션) vs fetchJoinReadWrite(일반 트랜잭션, 스냅샷 생성) -> gc.alloc.rate.norm 비교
+ * 프로젝션 매핑 비교 : nativeProjection vs nativeProjectionRowMapper, interfaceProjection vs interfaceProjectionRowMapper
+ *   -> 프록시 기반 프로젝션 vs JDBC RowMapper (ProjectionRowMappers)
+ *   -> 페이지 크기를 회원 수보다 크게 줘서 두 쪽 다 count 쿼리를 생략하게 한다. (한쪽만 count 캐시를 쓰면 매핑 비교가 안됨)
+ *
+ * 실행 : ./gradlew jmh  (임베디드 H2 메모리 DB를 사용하므로 H2 서버 필요 없음)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MemberQueryBenchmark {
+
+    private static final int USERNAME_GROUPS = 10;
+
+    @Param({"1000", "10000"})
+    public int memberCount;
+
+    @Param({"10"})
+    public int teamCount;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private MemberJpaRepository memberJpaRepository;
+    private TransactionTemplate readOnlyTx;
+    private TransactionTemplate readWriteTx;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(DataJpaApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "datajpa.schema.explain-check=false",
+                        "decorator.datasource.enabled=false", //p6spy 로그가 측정에 끼지 않도록
+                        "logging.level.org.hibernate.SQL=warn")
+                .run();
+
+        memberRepository = context.getBean(MemberRepository.class);
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        TeamRepository teamRepository = context.getBean(TeamRepository.class);
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+
+        new TransactionTemplate(transactionManager).execute(status -> {
+            List<Team> teams = new ArrayList<>();
+            for (int i = 0; i < teamCount; i++) {
+                teams.add(teamRepository.save(new Team("team" + i)));
+            }
+            List<Member> members = new ArrayList<>();
+            for (int i = 0; i < memberCount; i++) {
+                members.add(new Member("member" + (i % USERNAME_GROUPS), i % 100, teams.get(i % teamCount)));
+            }
+            return memberRepository.saveAllInBatch(members);
+        });
+
+        readOnlyTx = new TransactionTemplate(transactionManager);
+        readOnlyTx.setReadOnly(true);
+        readWriteTx = new TransactionTemplate(transactionManager);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    //===== 전체 조회 =====
+
+    @Benchmark
+    public int lazyNPlusOne() {
+        return readOnlyTx.execute(status -> touchTeams(memberJpaRepository.findAll()));
+    }
+
+    @Benchmark
+    public int fetchJoin() {
+        return readOnlyTx.execute(status -> touchTeams(memberRepository.findMemberFetchJoin()));
+    }
+
+    //같은 쿼리를 쓰기 트랜잭션에서 실행 (엔티티마다 변경감지용 스냅샷 + flush시 비교)
+    @Benchmark
+    public int fetchJoinReadWrite() {
+        return readWriteTx.execute(status -> touchTeams(memberRepository.findMemberFetchJoin()));
+    }
+
+    @Benchmark
+    public int entityGraphFindAll() {
+        return readOnlyTx.execute(status -> touchTeams(memberRepository.findAll()));
+    }
+
+    @Benchmark
+    public int entityGraphJpql() {
+        return readOnlyTx.execute(status -> touchTeams(memberRepository.findMemberEntityGraph()));
+    }
+
+    @Benchmark
+    public int dtoProjection() {
+        return readOnlyTx.execute(status -> {
+            int sum = 0;
+            for (MemberDto dto : memberRepository.findMemberDto()) {
+                sum += dto.getTeamName().length();
+            }
+            return sum;
+        });
+    }
+
+    @Benchmark
+    public int nativeProjection() {
+        return readOnlyTx.execute(status -> {
+            int sum = 0;
+            for (MemberProjection projection : memberRepository.findByNativeProjection(allMembers())) {
+                sum += projection.getTeamName().length();
+            }
+            return sum;
+        });
+    }
+
+    @Benchmark
+    public int nativeProjectionRowMapper() {
+        return readOnlyTx.execute(status -> {
+            int sum = 0;
+            for (MemberProjection projection : memberRepository.findByNativeProjectionWithCountCache(allMembers())) {
+                sum += projection.getTeamName().length();
+            }
+            return sum;
+        });
+    }
+
+    //===== username 조회 =====
+
+    @Benchmark
+    public int lazyByUsername() {
+        return readOnlyTx.execute(status -> touchTeams(memberRepository.findListByUsername("member1")));
+    }
+
+    @Benchmark
+    public int entityGraphByUsername() {
+        return readOnlyTx.execute(status -> touchTeams(memberRepository.findEntityGraphByUsername("member1")));
+    }
+
+    @Benchmark
+    public int namedEntityGraphByUsername() {
+        return readOnlyTx.execute(status -> touchTeams(memberRepository.findEntityGraph2ByUsername("member1")));
+    }
+
+    @Benchmark
+    public int interfaceProjection() {
+        return readOnlyTx.execute(status -> {
+            int sum = 0;
+            for (NestedClosedProjections projection :
+                    memberRepository.findProjectionsByUsername("member1", NestedClosedProjections.class)) {
+                sum += projection.getTeam().getName().length();
+            }
+            return sum;
+        });
+    }
+
+    @Benchmark
+    public int interfaceProjectionRowMapper() {
+        return readOnlyTx.execute(status -> {
+            int sum = 0;
+            for (NestedClosedProjections projection : memberRepository.findNestedClosedProjectionsByUsername("member1")) {
+                sum += projection.getTeam().getName().length();
+            }
+            return sum;
+        });
+    }
+
+    //첫 페이지에 전부 들어오고 size보다 적게 나오므로 PageableExecutionUtils가 count 쿼리를 생략
+    private PageRequest allMembers() {
+        return PageRequest.of(0, memberCount + 1);
+    }
+
+    //팀 이름을 실제로 읽어서 지연로딩을 발생시킨다. (결과를 반환해서 JIT가 없애지 못하게)
+    private int touchTeams(List<Member> members) {
+        int sum = 0;
+        for (Member member : members) {
+            sum += member.getTeam().getName().length();
+        }
+        return sum;
+    }
+}
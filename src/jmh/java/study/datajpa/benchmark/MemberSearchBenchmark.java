@@ -0,0 +1,94 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.DataJpaApplication;
+import study.datajpa.dto.MemberSearchCondition;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.MemberSpec;
+import study.datajpa.repository.TeamRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 검색 조건 조회 비교 (값만 계속 바뀌는 같은 모양의 검색)
+ * specInline : findAll(MemberSpec.of(condition)) + literal_handling_mode: inline (예전 기본 동작처럼 값이 SQL에 박힘)
+ *              -> 값마다 JPQL, SQL이 달라서 쿼리 플랜 캐시, PreparedStatement 캐시가 hit 하지 않음
+ * specBind   : findAll(MemberSpec.of(condition)) + literal_handling_mode: bind (지금 설정)
+ *              -> Criteria 트리 생성 + 렌더링은 매번 하지만 렌더링된 JPQL이 같으므로 쿼리 플랜 캐시 hit
+ * search     : MemberRepository.search(condition) - Criteria 없이 JPQL을 바로 만들고 값은 파라미터
+ *
+ * 실행 : ./gradlew jmh  (임베디드 H2 메모리 DB)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MemberSearchBenchmark {
+
+    private static final int MEMBER_COUNT = 1000;
+    private static final int TEAM_COUNT = 10;
+
+    @Param({"specInline", "specBind", "search"})
+    public String mode;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private TransactionTemplate readOnlyTx;
+    private int sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(DataJpaApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:search-" + mode + ";DB_CLOSE_DELAY=-1",
+                        "spring.jpa.properties.hibernate.criteria.literal_handling_mode="
+                                + ("specInline".equals(mode) ? "inline" : "bind"),
+                        "decorator.datasource.enabled=false", //p6spy 로그가 측정에 끼지 않도록
+                        "logging.level.org.hibernate.SQL=warn")
+                .run();
+
+        memberRepository = context.getBean(MemberRepository.class);
+        TeamRepository teamRepository = context.getBean(TeamRepository.class);
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+
+        new TransactionTemplate(transactionManager).execute(status -> {
+            List<Team> teams = new ArrayList<>();
+            for (int i = 0; i < TEAM_COUNT; i++) {
+                teams.add(teamRepository.save(new Team("team" + i)));
+            }
+            List<Member> members = new ArrayList<>();
+            for (int i = 0; i < MEMBER_COUNT; i++) {
+                members.add(new Member("member" + i, i % 100, teams.get(i % TEAM_COUNT)));
+            }
+            return memberRepository.saveAllInBatch(members);
+        });
+
+        readOnlyTx = new TransactionTemplate(transactionManager);
+        readOnlyTx.setReadOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    //username, teamName, age >= 조건 (값은 호출마다 다름)
+    @Benchmark
+    public int search() {
+        int i = sequence++;
+        MemberSearchCondition condition = new MemberSearchCondition(
+                "member" + (i % MEMBER_COUNT), "team" + (i % TEAM_COUNT), i % 50, null);
+        return readOnlyTx.execute(status -> "search".equals(mode)
+                ? memberRepository.search(condition).size()
+                : memberRepository.findAll(MemberSpec.of(condition)).size());
+    }
+}
@@ -0,0 +1,34 @@
+package study.datajpa.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * DB 조회 전용 비동기 스레드풀
+ * 동시에 DB를 쓸 수 있는 수는 커넥션 풀 크기만큼이므로 스레드 수도 풀 크기에 맞춘다.
+ * (더 많아봐야 커넥션을 기다리면서 스레드만 잡고 있음)
+ * 큐까지 꽉 차면 TaskRejectedException -> 컨트롤러에서 503으로 응답해서 요청을 더 받지 않도록 한다. (backpressure)
+ */
+@EnableAsync
+@Configuration
+public class AsyncConfig {
+
+    public static final String JDBC_EXECUTOR = "jdbcExecutor";
+
+    @Bean(name = JDBC_EXECUTOR)
+    public ThreadPoolTaskExecutor jdbcExecutor(@Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                                               @Value("${datajpa.async.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("jdbc-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+}
@@ -0,0 +1,41 @@
+package study.datajpa.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.datajpa.repository.MemberNearCache;
+import study.datajpa.sql.QueryCountPolicy;
+
+/**
+ * 애플리케이션 메트릭 (/actuator/metrics, /actuator/prometheus)
+ * 커넥션 풀 메트릭(hikaricp.connections.active, idle, pending, acquire ...)은 스프링 부트가 자동으로 등록
+ * 쿼리 실행 시간(datajpa.sql)은 QueryCountListener에서 기록
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder queryCountViolationMetrics(QueryCountPolicy queryCountPolicy) {
+        return registry -> FunctionCounter.builder("datajpa.query-count.violations", queryCountPolicy,
+                QueryCountPolicy::getViolations)
+                .description("쿼리 개수 초과, N + 1 의심 건수")
+                .register(registry);
+    }
+
+    @Bean
+    public MeterBinder memberNearCacheMetrics(MemberNearCache memberNearCache) {
+        return registry -> {
+            FunctionCounter.builder("datajpa.near-cache.requests", memberNearCache, MemberNearCache::getHitCount)
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("datajpa.near-cache.requests", memberNearCache, MemberNearCache::getMissCount)
+                    .tag("result", "miss")
+                    .register(registry);
+            FunctionCounter.builder("datajpa.near-cache.requests", memberNearCache, MemberNearCache::getCoalescedCount)
+                    .tag("result", "coalesced")
+                    .description("다른 요청의 DB 조회를 기다려서 받은 건수 (single-flight)")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,26 @@
+package study.datajpa.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 스키마 관리 (Flyway, src/main/resources/db/migration)
+ * 인덱스, 시퀀스 같은 스키마 변경은 V2__xxx.sql 처럼 버전을 올려서 추가한다. (이미 적용된 파일은 수정하면 안됨)
+ * datajpa.schema.clean-on-startup=true 면 clean 후 migrate (기본 false, local 프로필에서만 켜서 예전 ddl-auto: create 동작)
+ */
+@Configuration
+public class SchemaConfig {
+
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(
+            @Value("${datajpa.schema.clean-on-startup:false}") boolean cleanOnStartup) {
+        return flyway -> {
+            if (cleanOnStartup) {
+                flyway.clean();
+            }
+            flyway.migrate();
+        };
+    }
+}
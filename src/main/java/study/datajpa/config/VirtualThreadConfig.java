@@ -0,0 +1,40 @@
+package study.datajpa.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 가상 스레드 실행 모드 (opt-in) : datajpa.virtual-threads.enabled=true + JDK 21 이상으로 실행
+ * 톰캣 요청 처리 스레드를 가상 스레드로 바꾼다. MemberController에서 호출하는 리포지토리 코드도 요청 스레드에서 돌기 때문에
+ * DB를 기다리는 동안 캐리어(OS) 스레드를 반납하고 다른 요청을 처리할 수 있다.
+ *
+ * 주의 : H2 드라이버(TCP 세션), Hibernate 일부는 synchronized 안에서 I/O를 해서 그동안 캐리어 스레드를 고정(pinning)시킨다.
+ *   -> 고정될 수 있는 건 커넥션을 잡고 있는 가상 스레드뿐이고 그 수는 커넥션 풀 크기로 제한된다.
+ *      (HikariCP의 커넥션 대기는 synchronized가 아니라 park라서 고정되지 않음)
+ *   -> 그래서 캐리어 스레드 수를 커넥션 풀 크기 + 1 이상으로 맞춰서 커넥션을 다 쓰고 있어도 나머지 요청을 처리할 캐리어가 남도록 한다.
+ *      (-Djdk.virtualThreadScheduler.parallelism 을 직접 주면 그 값을 그대로 사용)
+ *   -> 고정 여부 확인은 -Djdk.tracePinnedThreads=short
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "datajpa.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService virtualThreadExecutor(@Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        int parallelism = VirtualThreads.ensureParallelism(poolSize + 1);
+        log.info("가상 스레드 모드로 요청을 처리합니다. 캐리어 스레드 = {}, 커넥션 풀 = {}", parallelism, poolSize);
+        return VirtualThreads.newVirtualThreadPerTaskExecutor();
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(ExecutorService virtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+}
@@ -0,0 +1,61 @@
+package study.datajpa.config;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 가상 스레드(Loom) 지원 여부 확인 + 생성
+ * 빌드는 Java 8 기준(sourceCompatibility 1.8)이라 JDK 21 API를 직접 부를 수 없어서 리플렉션으로 호출한다.
+ * JDK 21 이상에서 실행할 때만 동작
+ */
+public final class VirtualThreads {
+
+    private static final String PARALLELISM = "jdk.virtualThreadScheduler.parallelism";
+
+    private static final Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = findFactoryMethod();
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    //작업마다 가상 스레드를 새로 만드는 Executor (풀링하지 않는다)
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        if (!isSupported()) {
+            throw new IllegalStateException("가상 스레드는 JDK 21 이상에서만 사용할 수 있습니다. 현재 버전 = "
+                    + System.getProperty("java.version"));
+        }
+        try {
+            return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("가상 스레드 Executor 생성 실패", e);
+        }
+    }
+
+    /**
+     * 가상 스레드 스케줄러의 캐리어 스레드 수를 최소 minParallelism으로 맞춘다.
+     * 스케줄러는 첫 가상 스레드를 만들때 시스템 프로퍼티를 읽어서 생성되므로 그 전에 호출해야 효과가 있고
+     * -D로 직접 지정한 값이 있으면 건드리지 않는다.
+     * @return 적용된 캐리어 스레드 수
+     */
+    public static int ensureParallelism(int minParallelism) {
+        String configured = System.getProperty(PARALLELISM);
+        if (configured != null) {
+            return Integer.parseInt(configured);
+        }
+        int parallelism = Math.max(Runtime.getRuntime().availableProcessors(), minParallelism);
+        System.setProperty(PARALLELISM, String.valueOf(parallelism));
+        return parallelism;
+    }
+
+    private static Method findFactoryMethod() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -1,23 +1,50 @@
 package study.datajpa.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.data.web.PageableDefault;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.PathVariable;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import study.datajpa.dto.CursorPage;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberAsyncRepository;
 import study.datajpa.repository.MemberRepository;
 
 import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
+    private static final int EXPORT_FLUSH_ROWS = 500;
+
     private final MemberRepository memberRepository;
+    private final MemberAsyncRepository memberAsyncRepository;
+    private final ObjectMapper objectMapper;
+
+    //yml의 max-page-size를 커서 페이징에도 똑같이 적용
+    @Value("${spring.data.web.pageable.max-page-size:2000}")
+    private int maxPageSize;
+
+    @Value("${datajpa.multi-get.max-size:5000}")
+    private int multiGetMaxSize;
 
     /**
      *
@@ -32,9 +59,10 @@ public class MemberController {
         return member.getUsername();
     }
 
+    //같은 id를 계속 조회하는 요청이 많으므로 near cache를 거친다. (MemberNearCache, 부하 테스트는 끄고 측정)
     @GetMapping("/members/{id}") // 요새 pathvariable 기반으로 많이 짠다.
     public String findMember(@PathVariable("id") Long id) {
-        return memberRepository.findById(id).get().getUsername();
+        return memberRepository.findByIdCached(id).get().getUsername();
     }
 
     /**
@@ -71,16 +99,147 @@ public class MemberController {
      */
     @GetMapping("/members")
     public Page<MemberDto> list(@PageableDefault(size=5) Pageable pageable) {
-        //현재 엔티티를 반환하고있는데 그러면 안된다. 특히 API에서  DTO로 변환 하도록
-        Page<Member> page = memberRepository.findAll(pageable);
-        Page<MemberDto> map = page.map(MemberDto::new);
-        return map;
+        //엔티티를 반환하면 안된다. 특히 API에서는 DTO로
+        //엔티티 조회 후 page.map(MemberDto::new)로 바꾸는 대신 DTO로 바로 조회 (teamName까지 채워짐)
+        return memberRepository.findMemberDtoPage(pageable);
+    }
+
+    /**
+     * 여러 회원 한번에 조회 (/members?ids=1,2,3 , /members?names=AAA,BBB)
+     * 응답은 요청한 순서대로, 없는 회원은 빠진다.
+     * IN 절 청크 + 파라미터 패딩은 findAllByIdsInOrder 참고
+     */
+    @GetMapping(value = "/members", params = "ids")
+    public List<MemberDto> findByIds(@RequestParam("ids") List<Long> ids) {
+        checkMultiGetSize(ids);
+        return toDtos(memberRepository.findAllByIdsInOrder(ids));
+    }
+
+    @GetMapping(value = "/members", params = "names")
+    public List<MemberDto> findByNames(@RequestParam("names") List<String> names) {
+        checkMultiGetSize(names);
+        return toDtos(memberRepository.findByNamesInOrder(names));
+    }
+
+    /**
+     * 비동기 버전 (/members/async/{id}, /members/async)
+     * CompletableFuture를 반환하면 스프링 MVC가 비동기 요청으로 처리해서 조회가 끝날때까지 톰캣 스레드를 잡고 있지 않는다.
+     * DB 작업은 커넥션 풀 크기에 맞춘 jdbcExecutor에서 실행 (AsyncConfig)
+     */
+    @GetMapping("/members/async/{id}")
+    public CompletableFuture<String> findMemberAsync(@PathVariable("id") Long id) {
+        return memberAsyncRepository.findById(id)
+                .thenApply(member -> member.get().getUsername());
+    }
+
+    @GetMapping("/members/async")
+    public CompletableFuture<Page<MemberDto>> listAsync(@PageableDefault(size=5) Pageable pageable) {
+        return memberAsyncRepository.findMemberDtoPage(pageable);
+    }
+
+    //jdbcExecutor의 큐까지 꽉 찼으면 더 쌓지 않고 바로 503 (클라이언트가 나중에 재시도)
+    @ExceptionHandler(TaskRejectedException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public String jdbcExecutorBusy() {
+        return "서버가 바쁩니다. 잠시 후 다시 시도해주세요.";
+    }
+
+    /**
+     * 커서(키셋) 기반 페이징
+     * /members/cursor?size=5 로 첫페이지를 가져오고 응답의 nextCursor를
+     * /members/cursor?cursor=...&size=5 로 넘기면 다음 페이지
+     * offset도 count 쿼리도 없으므로 10000번째 페이지도 첫페이지와 같은 속도로 나온다.
+     * 대신 특정 페이지 번호로 바로 점프는 못함 (더보기, 무한스크롤, 배치 처리용)
+     */
+    @GetMapping("/members/cursor")
+    public CursorPage<MemberDto> listByCursor(@RequestParam(value = "cursor", required = false) String cursor,
+                                              @RequestParam(value = "size", defaultValue = "5") int size) {
+        Long lastId = decodeCursor(cursor);
+        int pageSize = Math.max(1, Math.min(size, maxPageSize));
+        Slice<Member> slice = memberRepository.findSliceByIdAfter(lastId, PageRequest.of(0, pageSize));
+        return CursorPage.of(slice.map(MemberDto::new), MemberDto::getId);
+    }
+
+    /**
+     * 전체 회원 export
+     * /members/export (NDJSON, 한줄에 json 하나) 또는 /members/export?format=csv
+     * DB에서 읽히는 대로 바로 응답에 쓰고 EXPORT_FLUSH_ROWS마다 flush해서 chunk로 내보내므로
+     * 회원이 몇명이든 힙 사용량이 일정하다.
+     * Stream 조회는 커넥션을 계속 잡고 있어야 해서 트랜잭션이 필요함
+     */
+    @Transactional(readOnly = true)
+    @GetMapping("/members/export")
+    public void export(@RequestParam(value = "format", defaultValue = "ndjson") String format,
+                       HttpServletResponse response) throws IOException {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        response.setContentType(csv ? "text/csv" : "application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+
+        PrintWriter writer = response.getWriter();
+        if (csv) {
+            writer.write("id,username,teamName\n");
+        }
+
+        try (Stream<MemberDto> stream = memberRepository.streamMemberDto()) {
+            Iterator<MemberDto> iterator = stream.iterator();
+            int rows = 0;
+            while (iterator.hasNext()) {
+                MemberDto dto = iterator.next();
+                writer.write(csv ? toCsvLine(dto) : objectMapper.writeValueAsString(dto));
+                writer.write('\n');
+                if (++rows % EXPORT_FLUSH_ROWS == 0) {
+                    writer.flush();
+                }
+            }
+        }
+        writer.flush();
+    }
+
+    //클라이언트가 커서를 잘못 넘긴 것이므로 500이 아니라 400
+    private Long decodeCursor(String cursor) {
+        try {
+            return CursorPage.decodeCursor(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    private void checkMultiGetSize(List<?> values) {
+        if (values.size() > multiGetMaxSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "한번에 최대 " + multiGetMaxSize + "개까지 조회할 수 있습니다.");
+        }
+    }
+
+    //team은 fetch join으로 같이 조회해둠
+    private List<MemberDto> toDtos(List<Member> members) {
+        List<MemberDto> dtos = new ArrayList<>(members.size());
+        for (Member member : members) {
+            dtos.add(new MemberDto(member.getId(), member.getUsername(),
+                    member.getTeam() == null ? null : member.getTeam().getName()));
+        }
+        return dtos;
+    }
+
+    private String toCsvLine(MemberDto dto) {
+        return dto.getId() + "," + csvValue(dto.getUsername()) + "," + csvValue(dto.getTeamName());
+    }
+
+    private String csvValue(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
     }
 
     //@PostConstruct
     public  void init() {
+        List<Member> members = new ArrayList<>();
         for(int i =0 ; i< 100; i++) {
-            memberRepository.save(new Member("user" + i, i));
+            members.add(new Member("user" + i, i));
         }
+        memberRepository.saveAllInBatch(members); //한건씩 save하지 않고 batch insert
     }
 }
@@ -0,0 +1,162 @@
+package study.datajpa.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 읽기/쓰기 분리 DataSource
+ * - @Transactional(readOnly = true) 안이면 레플리카 중 하나 (라운드로빈)
+ * - 그 외(쓰기 트랜잭션, 트랜잭션 없음)는 primary
+ * - 레플리카 커넥션을 못 얻으면 retry-after 동안 빼두고 다음 레플리카 -> 모두 안되면 primary (failover)
+ * - read-your-writes : 이 스레드에서 쓰기를 커밋한 뒤 readYourWritesMillis 동안은 읽기도 primary로
+ *   (레플리카는 복제 지연만큼 늦으므로 방금 저장한 데이터가 안보일 수 있다)
+ *   톰캣 스레드는 재사용되므로 웹 요청이 끝나면 기록을 지운다. (RoutingDataSourceConfig의 필터)
+ *
+ * 트랜잭션 시작 시점에는 아직 readOnly 여부가 세팅되기 전이라 반드시 LazyConnectionDataSourceProxy로 감싸서 사용할것
+ * (실제 커넥션을 첫 쿼리 시점에 얻도록)
+ */
+@Slf4j
+public class RoutingDataSource extends AbstractDataSource implements Closeable {
+
+    public static final String PRIMARY = "primary";
+
+    //이 스레드에서 마지막으로 쓰기를 커밋한 시간
+    private static final ThreadLocal<Long> LAST_WRITE = new ThreadLocal<>();
+    private static final Object WRITE_MARKER = new Object();
+
+    private final DataSource primary;
+    private final Map<String, DataSource> replicas;
+    private final List<String> replicaKeys;
+    private final long readYourWritesMillis;
+    private final long retryAfterMillis;
+
+    private final AtomicInteger next = new AtomicInteger();
+    private final Map<String, Long> downUntil = new ConcurrentHashMap<>();
+
+    public RoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+                             long readYourWritesMillis, long retryAfterMillis) {
+        this.primary = primary;
+        this.replicas = new LinkedHashMap<>(replicas);
+        this.replicaKeys = new ArrayList<>(replicas.keySet());
+        this.readYourWritesMillis = readYourWritesMillis;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        String key = determineKey();
+        if (PRIMARY.equals(key)) {
+            return primary.getConnection();
+        }
+        return replicaConnection(key);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new UnsupportedOperationException("RoutingDataSource는 각 DataSource의 계정을 사용합니다.");
+    }
+
+    //지금 호출하면 어디로 가는지 (테스트, 로그용)
+    public String determineKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            markWriteOnCommit();
+            return PRIMARY;
+        }
+        Long lastWrite = LAST_WRITE.get();
+        if (lastWrite != null && System.currentTimeMillis() - lastWrite < readYourWritesMillis) {
+            return PRIMARY;
+        }
+        String replica = nextHealthyReplica(null);
+        return replica != null ? replica : PRIMARY;
+    }
+
+    //레플리카 커넥션, 실패하면 그 레플리카는 잠시 빼고 다른 레플리카 -> primary 순서로
+    private Connection replicaConnection(String key) throws SQLException {
+        String current = key;
+        while (current != null) {
+            try {
+                return replicas.get(current).getConnection();
+            } catch (SQLException e) {
+                downUntil.put(current, System.currentTimeMillis() + retryAfterMillis);
+                log.warn("레플리카 [{}] 커넥션 실패, {}ms 동안 제외 : {}", current, retryAfterMillis, e.getMessage());
+                current = nextHealthyReplica(current);
+            }
+        }
+        log.warn("사용 가능한 레플리카가 없어서 primary에서 읽습니다.");
+        return primary.getConnection();
+    }
+
+    private String nextHealthyReplica(String exclude) {
+        int size = replicaKeys.size();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < size; i++) {
+            String key = replicaKeys.get(Math.floorMod(next.getAndIncrement(), size));
+            if (key.equals(exclude)) {
+                continue;
+            }
+            Long until = downUntil.get(key);
+            if (until == null || until <= now) {
+                downUntil.remove(key);
+                return key;
+            }
+        }
+        return null;
+    }
+
+    //쓰기 트랜잭션이 커밋되면 read-your-writes 시간 기록 (트랜잭션 밖의 auto commit 조회는 기록하지 않음)
+    private void markWriteOnCommit() {
+        if (readYourWritesMillis <= 0 || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.hasResource(WRITE_MARKER)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(WRITE_MARKER, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(WRITE_MARKER);
+                if (status == STATUS_COMMITTED) {
+                    LAST_WRITE.set(System.currentTimeMillis());
+                }
+            }
+        });
+    }
+
+    //이 스레드의 read-your-writes 기록 제거 (요청이 끝날때, 테스트)
+    public static void clearLastWrite() {
+        LAST_WRITE.remove();
+    }
+
+    //primary, 레플리카 풀을 모두 닫는다. (컨텍스트 종료시)
+    @Override
+    public void close() {
+        for (DataSource replica : replicas.values()) {
+            closeQuietly(replica);
+        }
+        closeQuietly(primary);
+    }
+
+    private void closeQuietly(DataSource dataSource) {
+        if (dataSource instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) dataSource).close();
+            } catch (Exception e) {
+                log.warn("DataSource를 닫지 못했습니다. {}", dataSource, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package study.datajpa.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 읽기/쓰기 분리 (opt-in) : datajpa.routing.enabled=true + datajpa.routing.replicas
+ * primary는 기존 spring.datasource 설정을 그대로 쓰고 레플리카마다 Hikari 풀을 따로 만든다.
+ * DataSource 빈을 직접 등록하므로 스프링 부트의 DataSource 자동 설정은 빠진다. (JPA, Flyway, JdbcTemplate 모두 이 DataSource 사용)
+ * 각 풀은 빈이 아니므로 p6spy는 바깥 DataSource 하나에만 걸린다. (쿼리 카운트 중복 방지)
+ * 대신 컨텍스트가 종료될때 빈의 close()에서 풀을 모두 닫는다. (LazyConnectionDataSourceProxy에는 close가 없으므로 RoutingDataSourceProxy)
+ * 스프링 부트는 DataSource 빈을 HikariDataSource로 풀 수 있을때만 hikaricp.* 메트릭을 등록하므로
+ * 풀마다 직접 MeterRegistry를 연결한다. (pool 태그 = datajpa-pool, datajpa-replica-0 ...)
+ */
+@Configuration
+@ConditionalOnProperty(name = "datajpa.routing.enabled", havingValue = "true")
+@EnableConfigurationProperties(RoutingProperties.class)
+public class RoutingDataSourceConfig {
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties dataSourceProperties, RoutingProperties routingProperties,
+                                 Environment environment, ObjectProvider<MeterRegistry> meterRegistry) {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        bindMetrics(primary, registry);
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < routingProperties.getReplicas().size(); i++) {
+            RoutingProperties.Replica replica = routingProperties.getReplicas().get(i);
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("datajpa-replica-" + i);
+            dataSource.setJdbcUrl(replica.getUrl());
+            dataSource.setUsername(replica.getUsername());
+            dataSource.setPassword(replica.getPassword());
+            dataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+            dataSource.setReadOnly(true);
+            dataSource.setInitializationFailTimeout(-1); //레플리카가 죽어있어도 기동은 되도록 (failover)
+            bindMetrics(dataSource, registry);
+            replicas.put("replica-" + i, dataSource);
+        }
+
+        RoutingDataSource routing = new RoutingDataSource(primary, replicas,
+                routingProperties.getReadYourWritesMillis(), routingProperties.getRetryAfterMillis());
+        return new RoutingDataSourceProxy(routing);
+    }
+
+    //풀이 시작되기 전(첫 getConnection 전)에 설정해야 한다.
+    private void bindMetrics(HikariDataSource dataSource, MeterRegistry registry) {
+        if (registry != null) {
+            dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+        }
+    }
+
+    //read-your-writes 기록(스레드 로컬)이 재사용되는 톰캣 스레드의 다른 요청으로 넘어가지 않도록 요청마다 지운다.
+    @Bean
+    public OncePerRequestFilter lastWriteClearingFilter() {
+        return new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+                    throws ServletException, IOException {
+                try {
+                    filterChain.doFilter(request, response);
+                } finally {
+                    RoutingDataSource.clearLastWrite();
+                }
+            }
+
+            //비동기 요청은 재디스패치된 스레드에서도 지워야한다.
+            @Override
+            protected boolean shouldNotFilterAsyncDispatch() {
+                return false;
+            }
+        };
+    }
+
+    //빈 destroy 메서드(close)로 안쪽 풀까지 닫는다.
+    static class RoutingDataSourceProxy extends LazyConnectionDataSourceProxy implements Closeable {
+
+        private final RoutingDataSource routing;
+
+        RoutingDataSourceProxy(RoutingDataSource routing) {
+            super(routing);
+            this.routing = routing;
+        }
+
+        @Override
+        public void close() {
+            routing.close();
+        }
+    }
+}
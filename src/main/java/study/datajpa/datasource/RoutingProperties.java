@@ -0,0 +1,29 @@
+package study.datajpa.datasource;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * datajpa.routing.* (application.yml)
+ */
+@Getter @Setter
+@ConfigurationProperties("datajpa.routing")
+public class RoutingProperties {
+
+    private boolean enabled;
+    private long readYourWritesMillis = 1000;
+    private long retryAfterMillis = 5000;
+    private List<Replica> replicas = new ArrayList<>();
+
+    @Getter @Setter
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+}
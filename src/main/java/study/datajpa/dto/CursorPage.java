@@ -0,0 +1,61 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+import org.springframework.data.domain.Slice;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 커서(키셋) 기반 페이징 응답
+ * 클라이언트는 nextCursor를 그대로 다음 요청에 넘겨주기만 하면 된다.
+ * 커서 안에 무엇이 들어있는지(마지막 id)는 클라이언트가 몰라도 되도록 인코딩해서 내려줌
+ */
+@Getter
+public class CursorPage<T> {
+
+    private static final String PREFIX = "id:";
+
+    private final List<T> content;
+    private final String nextCursor; //다음 페이지가 없으면 null
+    private final boolean hasNext;
+
+    private CursorPage(List<T> content, String nextCursor, boolean hasNext) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.hasNext = hasNext;
+    }
+
+    //Slice의 마지막 요소의 id로 다음 커서를 만든다. (count 쿼리 없이 size + 1개로 hasNext 판단)
+    public static <T> CursorPage<T> of(Slice<T> slice, Function<T, Long> idGetter) {
+        List<T> content = slice.getContent();
+        if (!slice.hasNext() || content.isEmpty()) {
+            return new CursorPage<>(content, null, false);
+        }
+        Long lastId = idGetter.apply(content.get(content.size() - 1));
+        return new CursorPage<>(content, encodeCursor(lastId), true);
+    }
+
+    public static String encodeCursor(Long lastId) {
+        byte[] raw = (PREFIX + lastId).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    //커서가 없으면 첫페이지 (id는 1부터 시작하므로 0)
+    public static Long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0L;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(PREFIX)) {
+                throw new IllegalArgumentException("잘못된 커서입니다. cursor = " + cursor);
+            }
+            return Long.valueOf(decoded.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) { //Base64 오류, NumberFormatException 모두 여기로
+            throw new IllegalArgumentException("잘못된 커서입니다. cursor = " + cursor, e);
+        }
+    }
+}
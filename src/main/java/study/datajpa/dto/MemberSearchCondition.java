@@ -0,0 +1,17 @@
+package study.datajpa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+//회원 검색 조건 (값이 없는 조건은 쿼리에서 빠진다)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MemberSearchCondition {
+
+    private String username;
+    private String teamName;
+    private Integer ageGoe; //나이 >=
+    private Integer ageLoe; //나이 <=
+}
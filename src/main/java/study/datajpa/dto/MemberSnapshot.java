@@ -0,0 +1,20 @@
+package study.datajpa.dto;
+
+import lombok.Value;
+import study.datajpa.entity.Member;
+
+/**
+ * near cache(MemberNearCache)에 들어가는 Member 조회 결과
+ * 캐시는 여러 요청이 같은 객체를 같이 보므로 엔티티 대신 값만 복사한 불변 객체를 넣는다. (수정, 지연로딩 불가)
+ */
+@Value
+public class MemberSnapshot {
+
+    Long id;
+    String username;
+    int age;
+
+    public static MemberSnapshot of(Member member) {
+        return new MemberSnapshot(member.getId(), member.getUsername(), member.getAge());
+    }
+}
@@ -2,7 +2,8 @@ package study.datajpa.entity;
 
 
 import lombok.*;
-
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 
@@ -14,12 +15,29 @@ import javax.persistence.*;
 //가급적이면 연관관계 필드는 Tostring에서 제외하는게 좋다.
 @NamedQuery(
         name = "Member.findByUsername",
-        query = "select m from Member m where m.username = :username"
+        query = "select m from Member m where m.username = :username",
+        hints = @QueryHint(name = "org.hibernate.cacheable", value = "true") //쿼리 캐시 (cache 프로필에서만 동작)
 )
 @NamedEntityGraph(name = "Member.all", attributeNodes = @NamedAttributeNode("team"))
+//Team.members 컬렉션 캐시가 Member id만 들고 있으므로 Member도 같이 캐시 (cache 프로필에서만 동작)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+//@GeneratedValue만 쓰면 시퀀스를 1씩 증가시켜서 persist 할때마다 시퀀스 조회 쿼리가 한번씩 나간다.
+//allocationSize만큼 시퀀스를 한번에 올려두고 메모리에서 id를 나눠주면(pooled) 50건당 한번만 조회
+@SequenceGenerator(name = "MEMBER_SEQ_GENERATOR", sequenceName = "member_seq", allocationSize = Member.ID_ALLOCATION_SIZE)
+//조회 조건으로 쓰는 컬럼 인덱스 (실제 생성은 db/migration, 여기는 매핑 문서용)
+@Table(indexes = {
+        @Index(name = "idx_member_username", columnList = "username"),
+        @Index(name = "idx_member_age", columnList = "age"),
+        @Index(name = "idx_member_username_age", columnList = "username, age"),
+        @Index(name = "idx_member_team_id", columnList = "team_id")
+})
 public class Member {
 
-    @Id @GeneratedValue
+    //member_seq increment by (db/migration)와 같아야함, 샤드 시퀀스 시작값(ShardConfig)도 이 값을 쓴다.
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "MEMBER_SEQ_GENERATOR")
     @Column(name = "member_id") //Entity는 식별 클래스가있어 id로 쓰지만 디비에는 member_id로 저장하기 위해 지정
     private Long id;
     private String username;
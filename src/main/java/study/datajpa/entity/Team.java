@@ -1,6 +1,9 @@
 package study.datajpa.entity;
 
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -10,13 +13,21 @@ import java.util.List;
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "name"})
+@Cacheable //2차 캐시 대상 (cache 프로필에서만 동작)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+//Member.team 프록시를 초기화할때 같은 영속성 컨텍스트의 다른 Team 프록시도 IN 쿼리로 한번에 로딩
+//전역 설정(default_batch_fetch_size)보다 우선
+@BatchSize(size = 100)
+@SequenceGenerator(name = "TEAM_SEQ_GENERATOR", sequenceName = "team_seq", allocationSize = 50)
 public class Team {
 
-    @Id @GeneratedValue
+    @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "TEAM_SEQ_GENERATOR")
     @Column(name = "team_id")
     private Long id;
     private String name;
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE) //컬렉션 캐시 (멤버 id 목록)
+    @BatchSize(size = 100) //팀 목록을 페이징 조회한 뒤 members를 꺼내면 팀 100개씩 IN 쿼리로 로딩
     @OneToMany(mappedBy = "team")  //둘다 세팅을 걸면 한쪽에 mappedBy로 주인을 정해줘야함 양방향 (FK없는 쪽에 걸어주라)
     private List<Member> members = new ArrayList<>();
 
@@ -0,0 +1,28 @@
+package study.datajpa.repository;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 청크 단위 벌크 수정 결과
+ */
+@Getter
+@ToString
+public class BulkUpdateResult {
+
+    private final long updatedRows;
+    private final int chunks;
+    private final int commits;
+    private final long elapsedMillis;
+
+    public BulkUpdateResult(long updatedRows, int chunks, int commits, long elapsedMillis) {
+        this.updatedRows = updatedRows;
+        this.chunks = chunks;
+        this.commits = commits;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public long getRowsPerSecond() {
+        return updatedRows * 1000 / Math.max(elapsedMillis, 1);
+    }
+}
@@ -0,0 +1,86 @@
+package study.datajpa.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Page 조회용 totalCount 캐시
+ * 목록 화면에서는 count 쿼리가 데이터 쿼리만큼 비싼데 전체 건수는 요청마다 거의 바뀌지 않는다.
+ * 쿼리 + 파라미터를 키로 짧은 시간(ttl) 동안 count 결과를 재사용하고
+ * Member에 쓰기(save, delete, 벌크 수정)가 일어나면 MemberCacheEvictionAspect가 전부 비운다.
+ *
+ * estimate-threshold를 0 이상으로 주면 DB 통계의 추정 건수가 그 값보다 클때는 count(*)를 아예 날리지 않고 추정치를 쓴다.
+ * (수백만건 이상에서 페이지 번호가 정확할 필요는 없으므로)
+ */
+@Component
+public class CountCache {
+
+    private final ConcurrentHashMap<String, Entry> cache = new ConcurrentHashMap<>();
+    //evictAll 이전에 시작한 조회 결과가 캐시에 다시 들어가지 않도록 세대 번호로 구분
+    private final AtomicLong generation = new AtomicLong();
+
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final long estimateThreshold;
+
+    public CountCache(@Value("${datajpa.count-cache.ttl-millis:3000}") long ttlMillis,
+                      @Value("${datajpa.count-cache.max-entries:1000}") int maxEntries,
+                      @Value("${datajpa.count-cache.estimate-threshold:-1}") long estimateThreshold) {
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+        this.estimateThreshold = estimateThreshold;
+    }
+
+    /**
+     * @param key            쿼리 + 파라미터
+     * @param exactCount     실제 count 쿼리
+     * @param estimatedCount 추정 건수 (없으면 null) - 조건 없는 전체 count에만 넘길것
+     */
+    public long count(String key, LongSupplier exactCount, LongSupplier estimatedCount) {
+        long now = System.currentTimeMillis();
+        Entry entry = cache.get(key);
+        if (entry != null && entry.expiresAt > now) {
+            return entry.count;
+        }
+
+        long startGeneration = generation.get();
+        long count = load(exactCount, estimatedCount);
+
+        if (startGeneration == generation.get()) {
+            if (cache.size() >= maxEntries) {
+                cache.clear(); //파라미터 조합이 너무 많아지면 그냥 다 비움 (짧게 쓰는 캐시라 LRU까진 필요없음)
+            }
+            cache.put(key, new Entry(count, now + ttlMillis));
+        }
+        return count;
+    }
+
+    public void evictAll() {
+        generation.incrementAndGet();
+        cache.clear();
+    }
+
+    private long load(LongSupplier exactCount, LongSupplier estimatedCount) {
+        if (estimateThreshold >= 0 && estimatedCount != null) {
+            long estimated = estimatedCount.getAsLong();
+            if (estimated > estimateThreshold) {
+                return estimated;
+            }
+        }
+        return exactCount.getAsLong();
+    }
+
+    private static class Entry {
+        private final long count;
+        private final long expiresAt;
+
+        private Entry(long count, long expiresAt) {
+            this.count = count;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package study.datajpa.repository;
+
+import org.hibernate.Hibernate;
+import org.springframework.beans.BeanUtils;
+import org.springframework.data.domain.ExampleMatcher;
+
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.Metamodel;
+import javax.persistence.metamodel.SingularAttribute;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Query by Example 프로브 분석 결과
+ * 스프링 기본 구현(QueryByExamplePredicateBuilder)은 호출할때마다 메타모델 + 리플렉션으로 프로브를 훑는다.
+ * 타입 + ignorePaths 조합별로 비교할 속성 목록(getter 체인)을 한번만 만들어서 캐시하고 이후에는 값만 읽는다.
+ * 값은 필드가 아니라 getter로 읽는다. 프로브가 getReference()로 얻은 프록시(Team 등)를 들고 있으면
+ * 프록시 객체의 필드는 비어있으므로 필드를 직접 읽으면 조건이 빠져버린다. (getter가 없으면 프록시를 풀고 필드를 읽음)
+ *
+ * 기본 구현과 같은 규칙 : 컬렉션은 무시, 연관관계(ToOne)는 값이 있으면 내부 조인 후 안쪽 속성 비교, 기본타입(int)은 항상 비교
+ */
+class ExampleProbeMetadata {
+
+    private static final int MAX_ENTRIES = 256;
+    private static final ConcurrentHashMap<String, ExampleProbeMetadata> CACHE = new ConcurrentHashMap<>();
+
+    private final List<ProbeProperty> properties;
+
+    private ExampleProbeMetadata(List<ProbeProperty> properties) {
+        this.properties = Collections.unmodifiableList(properties);
+    }
+
+    static ExampleProbeMetadata of(Metamodel metamodel, Class<?> type, ExampleMatcher matcher) {
+        String key = type.getName() + ":" + new TreeSet<>(matcher.getIgnoredPaths());
+        ExampleProbeMetadata metadata = CACHE.get(key);
+        if (metadata != null) {
+            return metadata;
+        }
+        List<ProbeProperty> properties = new ArrayList<>();
+        collect(metamodel, metamodel.entity(type), "", null, new Field[0], matcher.getIgnoredPaths(), properties);
+        metadata = new ExampleProbeMetadata(properties);
+        if (CACHE.size() >= MAX_ENTRIES) {
+            CACHE.clear();
+        }
+        CACHE.put(key, metadata);
+        return metadata;
+    }
+
+    List<ProbeProperty> getProperties() {
+        return properties;
+    }
+
+    private static void collect(Metamodel metamodel, EntityType<?> entity, String prefix, String association,
+                                Field[] parentChain, Set<String> ignoredPaths, List<ProbeProperty> result) {
+        for (SingularAttribute<?, ?> attribute : entity.getSingularAttributes()) {
+            String path = prefix + attribute.getName();
+            if (ignoredPaths.contains(path) || !(attribute.getJavaMember() instanceof Field)) {
+                continue;
+            }
+            Field field = (Field) attribute.getJavaMember();
+            field.setAccessible(true);
+            Field[] chain = append(parentChain, field);
+
+            if (attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.MANY_TO_ONE
+                    || attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.ONE_TO_ONE) {
+                if (association == null) { //한단계까지만 (연관관계의 연관관계는 따라가지 않음)
+                    result.add(new ProbeProperty(path, attribute.getName(), null, chain, false, true));
+                    collect(metamodel, metamodel.entity(attribute.getJavaType()), path + ".", attribute.getName(),
+                            chain, ignoredPaths, result);
+                }
+                continue;
+            }
+            result.add(new ProbeProperty(path, attribute.getName(), association, chain,
+                    attribute.getJavaType() == String.class, false));
+        }
+    }
+
+    private static Field[] append(Field[] chain, Field field) {
+        Field[] result = new Field[chain.length + 1];
+        System.arraycopy(chain, 0, result, 0, chain.length);
+        result[chain.length] = field;
+        return result;
+    }
+
+    /**
+     * 비교 대상 속성 하나
+     * association이 null이면 루트 엔티티 속성, 아니면 association 조인의 속성
+     * join이 true면 값이 있을때 조인만 하는 연관관계 자체
+     */
+    static class ProbeProperty {
+        private final String path;
+        private final String attribute;
+        private final String association;
+        private final Field[] chain;
+        private final Method[] getters; //필드별 getter (없으면 null)
+        private final boolean string;
+        private final boolean join;
+
+        private ProbeProperty(String path, String attribute, String association, Field[] chain,
+                              boolean string, boolean join) {
+            this.path = path;
+            this.attribute = attribute;
+            this.association = association;
+            this.chain = chain;
+            this.getters = new Method[chain.length];
+            for (int i = 0; i < chain.length; i++) {
+                PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(chain[i].getDeclaringClass(), chain[i].getName());
+                getters[i] = descriptor == null ? null : descriptor.getReadMethod();
+            }
+            this.string = string;
+            this.join = join;
+        }
+
+        //프로브에서 값 읽기 (중간 연관관계가 null이면 null)
+        Object read(Object probe) {
+            Object value = probe;
+            try {
+                for (int i = 0; i < chain.length; i++) {
+                    if (value == null) {
+                        return null;
+                    }
+                    value = getters[i] != null ? getters[i].invoke(value) : chain[i].get(Hibernate.unproxy(value));
+                }
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("프로브 값을 읽을 수 없습니다. path = " + path, e);
+            }
+            return value;
+        }
+
+        String getPath() {
+            return path;
+        }
+
+        String getAttribute() {
+            return attribute;
+        }
+
+        String getAssociation() {
+            return association;
+        }
+
+        boolean isString() {
+            return string;
+        }
+
+        boolean isJoin() {
+            return join;
+        }
+    }
+}
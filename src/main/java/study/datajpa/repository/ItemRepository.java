@@ -3,6 +3,7 @@ package study.datajpa.repository;
 import org.springframework.data.jpa.repository.JpaRepository;
 import study.datajpa.entity.Item;
 
-public interface ItemRepository extends JpaRepository<Item, Long> {
+//Item의 id는 직접 넣는 String (Persistable<String>)
+public interface ItemRepository extends JpaRepository<Item, String>, ItemRepositoryCustom {
 
 }
@@ -0,0 +1,18 @@
+package study.datajpa.repository;
+
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Item;
+
+import java.util.Collection;
+
+public interface ItemRepositoryCustom {
+
+    /**
+     * 대량 upsert (이미 있는 id는 건너뛰고 없는 것만 insert)
+     * save()는 id를 직접 넣는 엔티티라 isNew가 false면 merge -> row마다 select + update가 나간다.
+     * DB의 upsert 문법(H2 MERGE INTO, PostgreSQL INSERT ... ON CONFLICT)으로 존재 여부 확인 없이 batch_size씩 JDBC batch로 전송
+     * @return 새로 insert된 건수
+     */
+    @Transactional
+    int upsertAll(Collection<Item> items);
+}
@@ -0,0 +1,81 @@
+package study.datajpa.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.datajpa.entity.Item;
+
+import javax.persistence.EntityManager;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * ItemRepositoryCustom 구현체
+ * upsert는 JPA로 표현할 수 없어서 JdbcTemplate으로 (같은 트랜잭션, 같은 커넥션 사용)
+ */
+@RequiredArgsConstructor
+public class ItemRepositoryImpl implements ItemRepositoryCustom {
+
+    //없는 id만 insert (H2는 표준 MERGE 문법 지원)
+    private static final String H2_UPSERT = "merge into item t" +
+            " using (select cast(? as varchar(255)) as id, cast(? as timestamp) as created_date) s on t.id = s.id" +
+            " when not matched then insert (id, created_date) values (s.id, s.created_date)";
+
+    private static final String POSTGRESQL_UPSERT = "insert into item (id, created_date) values (?, ?)" +
+            " on conflict (id) do nothing";
+
+    private final EntityManager em;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}")
+    private int batchSize;
+
+    //DB 종류는 바뀌지 않으므로 처음 한번만 확인
+    private volatile String upsertSql;
+
+    @Override
+    public int upsertAll(Collection<Item> items) {
+        if (items.isEmpty()) {
+            return 0;
+        }
+        em.flush(); //아직 flush 안된 persist가 있으면 먼저 DB에 반영
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int[][] results = jdbcTemplate.batchUpdate(upsertSql(), new ArrayList<>(items), batchSize, (ps, item) -> {
+            ps.setString(1, item.getId());
+            ps.setTimestamp(2, now);
+        });
+
+        int inserted = 0;
+        for (int[] batch : results) {
+            for (int count : batch) {
+                inserted += Math.max(count, 0); //드라이버가 건수를 모르면 음수(SUCCESS_NO_INFO)
+            }
+        }
+        return inserted;
+    }
+
+    private String upsertSql() {
+        String sql = upsertSql;
+        if (sql == null) {
+            sql = resolveUpsertSql();
+            upsertSql = sql; //동시에 두번 확인해도 결과가 같으므로 락 없이
+        }
+        return sql;
+    }
+
+    private String resolveUpsertSql() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        if ("H2".equals(product)) {
+            return H2_UPSERT;
+        }
+        if ("PostgreSQL".equals(product)) {
+            return POSTGRESQL_UPSERT;
+        }
+        throw new IllegalStateException("upsert를 지원하지 않는 DB입니다 : " + product);
+    }
+}
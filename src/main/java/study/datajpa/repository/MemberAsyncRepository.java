@@ -0,0 +1,37 @@
+package study.datajpa.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Repository;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 자주 쓰는 조회의 비동기 버전
+ * jdbcExecutor 스레드에서 조회하고 CompletableFuture로 바로 반환하므로
+ * 컨트롤러가 이걸 그대로 반환하면 톰캣 스레드는 DB 응답을 기다리지 않고 반납된다.
+ *
+ * 주의 : 다른 스레드에서 실행되므로 호출한 쪽의 트랜잭션, 영속성 컨텍스트와 무관하다.
+ *       반환된 엔티티는 준영속 상태라 지연로딩이 안되므로 필요한 값은 DTO로 만들어서 넘길것
+ */
+@Repository
+@RequiredArgsConstructor
+public class MemberAsyncRepository {
+
+    private final MemberRepository memberRepository;
+
+    @Async("jdbcExecutor")
+    public CompletableFuture<Optional<Member>> findById(Long id) {
+        return CompletableFuture.completedFuture(memberRepository.findById(id));
+    }
+
+    @Async("jdbcExecutor")
+    public CompletableFuture<Page<MemberDto>> findMemberDtoPage(Pageable pageable) {
+        return CompletableFuture.completedFuture(memberRepository.findMemberDtoPage(pageable));
+    }
+}
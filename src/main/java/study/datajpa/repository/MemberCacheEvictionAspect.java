@@ -0,0 +1,92 @@
+package study.datajpa.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.entity.Member;
+
+/**
+ * Member 테이블에 쓰기가 일어나면 Member 관련 캐시를 비운다.
+ * save, delete는 Spring Data Jpa 구현체(SimpleJpaRepository)에 있어서 직접 코드를 넣을 수가 없고
+ * bulkAgePlus같은 벌크 연산은 영속성 컨텍스트(엔티티 리스너)도 거치지 않으므로 리포지토리 호출 자체를 AOP로 잡는다.
+ *
+ * near cache(MemberNearCache)는 save, delete 대상 id만 비우고 대상을 알 수 없으면(벌크 연산, deleteAll()) 전부 비운다.
+ * (리포지토리를 거치지 않는 변경감지 update는 MemberNearCacheEvictionListener가 비운다.)
+ * 트랜잭션 안이면 커밋 전에 다른 요청이 옛날 값(count, 회원)을 다시 캐시할 수 있으므로 트랜잭션이 끝난 뒤에 한번 더 비운다.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class MemberCacheEvictionAspect {
+
+    private final CountCache countCache;
+    private final MemberNearCache memberNearCache;
+
+    @Pointcut("this(study.datajpa.repository.MemberRepository) || this(study.datajpa.repository.MemberJpaRepository)")
+    public void memberRepository() {
+    }
+
+    @Pointcut("execution(* save*(..)) || execution(* delete*(..)) || execution(* bulk*(..))")
+    public void writeMethod() {
+    }
+
+    @AfterReturning("memberRepository() && writeMethod()")
+    public void evictAfterWrite(JoinPoint joinPoint) {
+        Object[] args = joinPoint.getArgs();
+        evict(args);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(args);
+                }
+            });
+        }
+    }
+
+    private void evict(Object[] args) {
+        countCache.evictAll();
+        evictNearCache(args);
+    }
+
+    private void evictNearCache(Object[] args) {
+        if (!hasTarget(args)) {
+            memberNearCache.evictAll();
+            return;
+        }
+        for (Object arg : args) {
+            if (arg instanceof Member) {
+                evictMember((Member) arg);
+            } else if (arg instanceof Long) {
+                memberNearCache.evict((Long) arg); //deleteById
+            } else if (arg instanceof Iterable) {
+                for (Object element : (Iterable<?>) arg) {
+                    if (element instanceof Member) {
+                        evictMember((Member) element);
+                    }
+                }
+            }
+        }
+    }
+
+    //대상 Member(id)를 알 수 있는 호출인지 (벌크 연산은 age 같은 값이 넘어오므로 전부 비움)
+    private boolean hasTarget(Object[] args) {
+        for (Object arg : args) {
+            if (arg instanceof Member || arg instanceof Long || arg instanceof Iterable) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void evictMember(Member member) {
+        if (member.getId() != null) {
+            memberNearCache.evict(member.getId());
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package study.datajpa.repository;
 
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.entity.Member;
 
 import javax.persistence.Entity;
@@ -8,8 +12,10 @@ import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Repository
+@Transactional(readOnly = true) //조회는 읽기 전용 트랜잭션 (FlushMode.MANUAL, 스냅샷 없음), 쓰기 메서드만 @Transactional
 public class MemberJpaRepository {
 
     //스프링 부트 컨테이너가 JPA에 있는 영속성컨텍스트 EntityManager를 가져옴
@@ -18,6 +24,7 @@ public class MemberJpaRepository {
     private EntityManager em;
 
     //저장
+    @Transactional
     public Member save(Member member) {
         em.persist(member);
         return member;
@@ -30,6 +37,7 @@ public class MemberJpaRepository {
 
 
     //삭제
+    @Transactional
     public void delete(Member member) {
         em.remove(member);
     }
@@ -42,6 +50,35 @@ public class MemberJpaRepository {
         return em.createQuery("select m from Member m", Member.class).getResultList();
     }
 
+    /**
+     * 전체 조회를 한건씩 흘려보내기 (export, 배치용)
+     * findAll()은 전체를 List로 만들고 영속성 컨텍스트에도 전부 쌓이지만
+     * Hibernate ScrollableResults는 커서로 fetchSize만큼씩 읽어오고 처리가 끝난 엔티티는 바로 detach 하므로
+     * 테이블 크기와 상관없이 메모리 사용량이 일정하다.
+     * 트랜잭션 안에서 호출할것, 넘겨받은 엔티티는 consumer 밖으로 들고 나가지 말것
+     */
+    public long scrollAll(int fetchSize, Consumer<Member> consumer) {
+        Session session = em.unwrap(Session.class);
+        ScrollableResults results = session.createQuery("select m from Member m order by m.id")
+                .setFetchSize(fetchSize)
+                .setReadOnly(true) //스냅샷을 만들지 않음
+                .setCacheable(false)
+                .scroll(ScrollMode.FORWARD_ONLY);
+
+        long count = 0;
+        try {
+            while (results.next()) {
+                Member member = (Member) results.get(0);
+                consumer.accept(member);
+                session.evict(member);
+                count++;
+            }
+        } finally {
+            results.close();
+        }
+        return count;
+    }
+
     //옵셔널로 조회
     public Optional<Member> findById(Long id) {
         Member member = em.find(Member.class, id);
@@ -97,6 +134,7 @@ public class MemberJpaRepository {
     }
 
     //회원의 나이를 전체 수정 (벌크 수정) / 더티체킹같은경우는 한건에 의해서만 해주므로
+    @Transactional
     public int bulkAgePlus(int age) {
         return em.createQuery("update Member m set m.age = m.age + 1 where m.age >= :age")
                 .setParameter("age", age)
@@ -0,0 +1,142 @@
+package study.datajpa.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import study.datajpa.dto.MemberSnapshot;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * id로 조회한 Member를 짧은 시간(ttl) 동안 들고 있는 애플리케이션 캐시 (near cache)
+ * /members/{id}처럼 같은 id를 계속 조회하는 요청이 DB까지 가지 않게 한다.
+ *
+ * 캐시에 없는 같은 id를 동시에 여러 요청이 조회하면 처음 요청만 DB를 조회하고 나머지는 그 결과를 기다린다. (single-flight)
+ * Member가 바뀌면 비운다.
+ * - 변경감지 update, remove : MemberNearCacheEvictionListener (Hibernate 이벤트)
+ * - 벌크 연산, 리포지토리 save, delete : MemberCacheEvictionAspect
+ * evict 이전에 시작한 조회 결과가 다시 들어가지 않도록 세대 번호로 구분 (CountCache와 같은 방식)
+ *
+ * 여러 요청이 같은 값을 같이 보므로 엔티티가 아니라 불변 객체(MemberSnapshot)를 캐시한다.
+ */
+@Component
+public class MemberNearCache {
+
+    private final ConcurrentHashMap<Long, Entry> cache = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, CompletableFuture<Optional<MemberSnapshot>>> loading = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final int maxEntries;
+
+    public MemberNearCache(@Value("${datajpa.near-cache.enabled:true}") boolean enabled,
+                           @Value("${datajpa.near-cache.ttl-millis:1000}") long ttlMillis,
+                           @Value("${datajpa.near-cache.max-entries:10000}") int maxEntries) {
+        this.enabled = enabled;
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * @param id     회원 id
+     * @param loader 캐시에 없을때 DB 조회 (없는 회원은 캐시하지 않음)
+     */
+    public Optional<MemberSnapshot> get(Long id, Function<Long, Optional<MemberSnapshot>> loader) {
+        if (!enabled) {
+            return loader.apply(id);
+        }
+
+        long now = System.currentTimeMillis();
+        Entry entry = cache.get(id);
+        if (entry != null && entry.expiresAt > now) {
+            hits.incrementAndGet();
+            return Optional.of(entry.member);
+        }
+
+        CompletableFuture<Optional<MemberSnapshot>> future = new CompletableFuture<>();
+        CompletableFuture<Optional<MemberSnapshot>> inFlight = loading.putIfAbsent(id, future);
+        if (inFlight != null) {
+            coalesced.incrementAndGet();
+            return await(inFlight);
+        }
+
+        misses.incrementAndGet();
+        long startGeneration = generation.get();
+        try {
+            Optional<MemberSnapshot> member = loader.apply(id);
+            if (member.isPresent() && startGeneration == generation.get()) {
+                if (cache.size() >= maxEntries) {
+                    cache.clear(); //CountCache와 마찬가지로 LRU 대신 다 비움
+                }
+                cache.put(id, new Entry(member.get(), now + ttlMillis));
+            }
+            future.complete(member);
+            return member;
+        } catch (Throwable e) {
+            //Error 등 무엇이 던져지든 기다리는 요청이 영원히 멈추지 않도록 future는 항상 완료
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(id, future);
+        }
+    }
+
+    public void evict(Long id) {
+        generation.incrementAndGet();
+        cache.remove(id);
+    }
+
+    public void evictAll() {
+        generation.incrementAndGet();
+        cache.clear();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    //다른 요청의 DB 조회 결과를 기다려서 받은 횟수
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    private Optional<MemberSnapshot> await(CompletableFuture<Optional<MemberSnapshot>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static class Entry {
+        private final MemberSnapshot member;
+        private final long expiresAt;
+
+        private Entry(MemberSnapshot member, long expiresAt) {
+            this.member = member;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package study.datajpa.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.entity.Member;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * 영속성 컨텍스트를 거친 Member 변경(변경감지 update, remove)이 flush 될때 near cache(MemberNearCache)를 비운다.
+ * MemberCacheEvictionAspect는 리포지토리 메서드 호출만 보므로 findById 후 setter로 바꾸는 경우를 놓친다.
+ * 벌크 연산은 이벤트가 발생하지 않으므로 여전히 aspect가 비운다.
+ *
+ * flush 시점에 한번, 트랜잭션이 끝난 뒤에 한번 더 비운다. (커밋 전에 다른 요청이 옛날 값을 다시 캐시할 수 있으므로)
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberNearCacheEvictionListener implements PostUpdateEventListener, PostDeleteEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final MemberNearCache memberNearCache;
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        evict(event.getEntity(), event.getId());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        evict(event.getEntity(), event.getId());
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void evict(Object entity, Object id) {
+        if (!(entity instanceof Member)) {
+            return;
+        }
+        Long memberId = (Long) id;
+        memberNearCache.evict(memberId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    memberNearCache.evict(memberId);
+                }
+            });
+        }
+    }
+}
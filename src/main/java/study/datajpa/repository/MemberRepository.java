@@ -7,17 +7,25 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
 
+import javax.persistence.QueryHint;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 //extends JpaRepository를 해줘야하고 제너릭은 타입과, 키의 타입을 넣어주면 됨
 //JpaRepository를 상속받아야하는데 인터페이스끼리 상속은 extends 고로 JpaRepository는 인터페이스
 //Spring Data jpa = 인터페이스만 만들어주면  구현체를 Spring Data jpa가 다 만들어서 넣어준다.
 //구현체는 SimpleJpaRepository JpaRepository에서 찾아보면 된다.
-public interface MemberRepository extends JpaRepository<Member, Long>, JpaSpecificationExecutor<Member> {
+//
+//조회가 대부분이므로 기본을 readOnly 트랜잭션으로 둔다. -> Hibernate 세션이 FlushMode.MANUAL + 읽기 전용이 되어
+//스냅샷(변경감지용 복사본)을 만들지 않고 flush도 하지 않음. 수정하는 메서드에만 @Transactional을 따로 붙일것
+//(save, delete 같은 기본 메서드는 SimpleJpaRepository에 붙어있는 @Transactional이 우선한다.)
+@Transactional(readOnly = true)
+public interface MemberRepository extends JpaRepository<Member, Long>, JpaSpecificationExecutor<Member>, MemberRepositoryCustom {
     //구현체가 없는데 어떻게 동작을 하나? 인터페이스를 상속받았을 뿐인데
     // 테스트에서 sout(memberRepository.getClass())로 찍어보면
     //memberRepository = class com.sun.proxy.$Proxy106 정보가 뜬다
@@ -77,6 +85,33 @@ public interface MemberRepository extends JpaRepository<Member, Long>, JpaSpecif
     @Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m join m.team t")
     List<MemberDto> findMemberDto();
 
+    /**
+     * 스트리밍 조회 (전체 export용)
+     * List로 받으면 전체 결과를 메모리에 올리지만 Stream은 JDBC ResultSet을 fetchSize만큼씩 읽으면서 넘겨준다.
+     * DTO로 바로 받으므로 영속성 컨텍스트에 엔티티가 쌓이지도 않는다. (읽기 전용, 2차 캐시 사용 안함)
+     * 커넥션이 열려있어야 하므로 반드시 트랜잭션 안에서 사용하고 다 쓰면 close 할것 (try-with-resources)
+     */
+    @QueryHints(value = {
+            @QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheable", value = "false")
+    })
+    @Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m left join m.team t order by m.id")
+    Stream<MemberDto> streamMemberDto();
+
+    /**
+     * 목록 API용 DTO 페이징 (/members)
+     * 엔티티 + 스냅샷을 만들었다가 DTO로 옮기지 않고 처음부터 DTO로 조회 -> row당 DTO 하나만 생성
+     * 팀은 left join으로 이름만 가져오므로 지연로딩도 없고 팀이 없는 회원도 빠지지 않는다.
+     * 정렬은 Pageable 그대로 (sort=username,desc 처럼 Member의 필드명 기준)
+     * 카운트는 조인할 필요가 없으므로 분리
+     */
+    @Query(value = "select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m left join m.team t",
+            countQuery = "select count(m) from Member m")
+    Page<MemberDto> findMemberDtoPage(Pageable pageable);
+
+    //쿼리 캐시 (cache 프로필에서만 동작), bulkAgePlus 같은 벌크 연산 후에는 Hibernate가 알아서 무효화
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     @Query("select m from Member m where m.username in :names")
     List<Member> findByNames(@Param("names") List<String> names);
 
@@ -85,16 +120,37 @@ public interface MemberRepository extends JpaRepository<Member, Long>, JpaSpecif
     Member findMemberByUsername(String username); //단건
     Optional<Member> findOptionalByUsername(String username); //단건의 Optional
 
+    /**
+     * 읽기 전용 힌트 : 바깥에 쓰기 트랜잭션이 있어도 이 쿼리로 읽은 엔티티는 스냅샷을 만들지 않는다.
+     * 변경감지가 안되므로 값을 바꿔도 update가 나가지 않음 -> 화면 표시처럼 읽기만 할때 이름으로 구분해서 쓸것
+     * (기본 조회 메서드에는 힌트를 붙이지 않는다. 쓰기 트랜잭션이면 변경감지, readOnly 트랜잭션이면 트랜잭션 설정으로 스냅샷 생략)
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.readOnly", value = "true"))
+    @Query("select m from Member m where m.username = :username")
+    List<Member> findReadOnlyByUsername(@Param("username") String username);
+
 
     /**
      * Spring Data Jpa의 페이징
      * page = totalCount 쿼리 같이 날림 slice = totalCount 쿼리 안날림( 더보기 버튼으로 계속 가져오는경우)
      *
      */
-    @Query(value = "select m from Member m left join m.team",
+    //ToOne 관계는 fetch join을 해도 row 수가 늘지 않으므로 페이징이 DB에서 그대로 된다.
+    //(컬렉션 fetch join + 페이징은 메모리에서 페이징하므로 금지, 컬렉션은 batch fetch로 해결)
+    @Query(value = "select m from Member m left join fetch m.team",
             countQuery = "select count(m.username) from Member m") //카운트 쿼리 분리 하기 굳이 조인이 필요없으니까
     Page<Member> findByAge(int age, Pageable pageable);
 
+    /**
+     * 키셋(seek) 페이징
+     * offset 페이징은 앞의 offset개를 다 읽고 버리기 때문에 뒤 페이지로 갈수록 느려지고 count 쿼리도 매번 나간다.
+     * 마지막으로 읽은 id 다음부터 읽으면 PK 인덱스를 타고 바로 찾아가므로 몇번째 페이지든 속도가 같다.
+     * Slice로 받으면 count 쿼리 없이 size + 1개를 조회해서 다음 페이지가 있는지만 판단
+     * pageable은 PageRequest.of(0, size)로 넘길것 (정렬은 쿼리의 id 순서 고정)
+     */
+    @Query("select m from Member m where m.id > :lastId order by m.id asc")
+    Slice<Member> findSliceByIdAfter(@Param("lastId") Long lastId, Pageable pageable);
+
 
     /**
      * Spring data Jpa를 이용한 벌크 수정
@@ -111,6 +167,7 @@ public interface MemberRepository extends JpaRepository<Member, Long>, JpaSpecif
      *                     -> JDBC, Mybatis가 직접 쿼리날리는것을 JPA는 인식을 못하기 때문 영속성컨텍스트의 내용과 안맞음
      *                       Mybatis에서 쿼리를 날리기전에 flush해주고?                 */
 
+    @Transactional //인터페이스 기본이 readOnly이므로 쓰기 메서드는 따로 지정
     @Modifying(clearAutomatically = true)   //이걸 해줘야 executeUpdate()를 함 없으면 getSingleResult나 getResultList()를 호출
     @Query("update Member m set m.age = m.age + 1 where m.age >= :age")
     int bulkAgePlus(@Param("age") int age);
@@ -154,6 +211,10 @@ public interface MemberRepository extends JpaRepository<Member, Long>, JpaSpecif
 
     <T> List<T> findProjectionsByUsername(@Param("username") String username, Class<T> type);
 
+    //UsernameOnly 대신 생성된 구현 클래스로 (select new ...UsernameOnlyViewImpl(e.username, e.age) from Member e)
+    @Query(UsernameOnlyViewImpl.SELECT + " where e.username = :username")
+    List<UsernameOnlyView> findUsernameOnlyViewByUsername(@Param("username") String username);
+
 
     /**
      * 네이티브 쿼리
@@ -168,6 +229,6 @@ public interface MemberRepository extends JpaRepository<Member, Long>, JpaSpecif
     Member findByNativeQuery(String username);
 
     @Query(value = "select m.member_id as id,m.username,t.name as teamName" +
-            " from member m left join team t",countQuery = "select count(*) from member",nativeQuery = true)
+            " from member m left join team t on m.team_id = t.team_id",countQuery = "select count(*) from member",nativeQuery = true)
     Page<MemberProjection> findByNativeProjection(Pageable pageable);
 }
@@ -0,0 +1,115 @@
+package study.datajpa.repository;
+
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.MemberSearchCondition;
+import study.datajpa.dto.MemberSnapshot;
+import study.datajpa.entity.Member;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * 사용자 정의 리포지토리
+ * 인터페이스로 메서드만 정의하고 구현은 이름 규칙(인터페이스명 + Impl)을 지킨 MemberRepositoryImpl에 하면
+ * Spring Data Jpa가 MemberRepository 구현체에 끼워 넣어준다.
+ * 쿼리 메서드로 표현하기 힘든 것들(캐시, EntityManager 직접 사용 등)을 여기에 둔다.
+ */
+public interface MemberRepositoryCustom {
+
+    /**
+     * findById + near cache (MemberNearCache), 엔티티 대신 불변 스냅샷을 돌려준다. (조회 전용)
+     * 트랜잭션 밖에서 호출하면 캐시를 거치고 동시에 들어온 같은 id 조회는 DB 조회 한번으로 합친다.
+     * 트랜잭션 안에서는 그 트랜잭션이 바꾼 값이 보여야 하므로 캐시를 쓰지 않고 영속성 컨텍스트에서 바로 만든다.
+     * SUPPORTS : 호출한 쪽 트랜잭션이 있으면 참여하고, 없으면 트랜잭션을 새로 열지 않는다. (캐시 히트에 커넥션을 잡지 않도록)
+     * 캐시를 채울때 조회한 Member는 준영속으로 만든다. (OSIV 영속성 컨텍스트에 남아서 요청 끝까지 쌓이지 않도록)
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    Optional<MemberSnapshot> findByIdCached(Long id);
+
+    /**
+     * id 여러개로 한번에 조회 (multi-get), 결과는 넘긴 id 순서대로 (중복 id는 한번만, 없는 id는 빠짐)
+     * IN 절은 청크(datajpa.multi-get.chunk-size) 단위로 나눠서 조회하고
+     * 청크 안의 파라미터 개수는 Hibernate가 2의 거듭제곱으로 맞춰준다. (in_clause_parameter_padding)
+     * -> id 개수가 매번 달라도 SQL 모양은 몇개 안되므로 쿼리 플랜 캐시, PreparedStatement 캐시가 그대로 hit
+     * 트랜잭션은 아래 findByAgeWithCountCache 설명 참고
+     */
+    @Transactional(readOnly = true)
+    List<Member> findAllByIdsInOrder(Collection<Long> ids);
+
+    //findByNames의 multi-get 버전, 결과는 넘긴 username 순서대로 (같은 username끼리는 id 순)
+    @Transactional(readOnly = true)
+    List<Member> findByNamesInOrder(Collection<String> names);
+
+    /**
+     * 조회 메서드들(multi-get 포함)에 붙인 @Transactional(readOnly = true)
+     * MemberRepository 인터페이스의 @Transactional(readOnly = true)는 여기(MemberRepositoryCustom) 메서드에는 적용되지 않는다.
+     * 붙이지 않으면 트랜잭션 없이 실행되어 읽기 전용 세션도, 레플리카 라우팅(RoutingDataSource)도 타지 않는다.
+     * 쓰기 트랜잭션 안에서 호출하면 그 트랜잭션에 참여하므로 변경감지는 그대로 동작
+     */
+    //age 회원 페이징, totalCount는 CountCache에서 재사용 (findByAge와 달리 실제로 age 조건을 건다)
+    @Transactional(readOnly = true)
+    Page<Member> findByAgeWithCountCache(int age, Pageable pageable);
+
+    //MemberSpec.of(condition)과 같은 검색, Criteria 트리 대신 JPQL을 바로 만들어서 사용 (비교 : MemberSearchBenchmark)
+    @Transactional(readOnly = true)
+    List<Member> search(MemberSearchCondition condition);
+
+    /**
+     * Query by Example 검색 (검색 폼용)
+     * 프로브 분석 결과는 타입 + ignorePaths별로 캐시 (ExampleProbeMetadata), Criteria 대신 JPQL을 바로 만든다.
+     * count 쿼리 없이 size + 1개를 조회해서 다음 페이지 여부만 판단 (Slice)
+     * REGEX, 속성별 matcher, null 포함(INCLUDE)은 스프링 기본 구현(Criteria)으로 처리
+     */
+    @Transactional(readOnly = true)
+    Slice<Member> findSliceByExample(Example<Member> example, Pageable pageable);
+
+    //JDBC로 바로 조회하는 메서드들(아래 4개)은 아직 flush 안된 변경이 보이도록 먼저 flush 하므로 트랜잭션이 꼭 필요하다.
+    /**
+     * findByNativeProjection과 같은 쿼리지만 프록시 없이 JDBC로 바로 매핑하고 totalCount는 CountCache에서 재사용
+     * 정렬은 id, username, teamName만 가능 (그 외 속성은 IllegalArgumentException)
+     */
+    @Transactional(readOnly = true)
+    Page<MemberProjection> findByNativeProjectionWithCountCache(Pageable pageable);
+
+    /**
+     * 전체 회원을 MemberProjection으로 하나씩 넘겨준다. (fetchSize만큼씩 읽으므로 회원 수와 상관없이 메모리 일정)
+     * @return 처리한 건수
+     */
+    @Transactional(readOnly = true)
+    long forEachNativeProjection(Consumer<MemberProjection> consumer);
+
+    //findProjectionsByUsername(username, NestedClosedProjections.class)의 JDBC 매핑 버전
+    @Transactional(readOnly = true)
+    List<NestedClosedProjections> findNestedClosedProjectionsByUsername(String username);
+
+    //findProjectionsByUsername(username, UsernameOnly.class)의 JDBC 매핑 버전 (엔티티 전체 대신 username, age만 조회)
+    @Transactional(readOnly = true)
+    List<UsernameOnly> findUsernameOnlyByUsername(String username);
+
+    /**
+     * 대량 저장용 saveAll
+     * batch_size 단위로 flush + clear 해서 영속성 컨텍스트가 계속 커지지 않도록 한다. (100만건을 넣어도 메모리 일정)
+     * 주의 : 중간에 clear를 하므로 같은 트랜잭션에서 이미 조회해둔 엔티티도 준영속 상태가 된다.
+     */
+    @Transactional
+    int saveAllInBatch(Iterable<Member> members);
+
+    /**
+     * bulkAgePlus의 청크 버전
+     * 테이블 전체를 한번에 update하면 그동안 많은 row에 락이 걸리므로 PK 범위(chunkSize)로 나눠서 update하고
+     * commitInterval개 청크마다 커밋해서 락을 빨리 풀어준다.
+     * clearAutomatically처럼 영속성 컨텍스트 전체를 비우지 않고 수정 범위에 있는 Member만 준영속으로 만든다.
+     *
+     * 이미 트랜잭션 안에서 호출하면 중간 커밋 없이 그 트랜잭션에서 모두 실행 (commitInterval 무시)
+     * 그래서 SUPPORTS로 둔다. (트랜잭션이 없으면 새로 열지 않고 구현에서 commitInterval마다 직접 커밋)
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    BulkUpdateResult bulkAgePlusInChunks(int age, int chunkSize, int commitInterval);
+}
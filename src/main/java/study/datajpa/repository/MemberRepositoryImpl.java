@@ -0,0 +1,514 @@
+package study.datajpa.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.EntityKey;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.convert.QueryByExamplePredicateBuilder;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.repository.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+import study.datajpa.dto.MemberSearchCondition;
+import study.datajpa.dto.MemberSnapshot;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * MemberRepositoryCustom 구현체
+ * 이름을 반드시 MemberRepository + Impl 로 맞춰야 Spring Data Jpa가 찾아서 조합해준다.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class MemberRepositoryImpl implements MemberRepositoryCustom {
+
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    //findByNativeProjectionWithCountCache 정렬 가능 속성 (MemberProjection 속성 -> 컬럼)
+    private static final Map<String, String> NATIVE_PROJECTION_SORT = new LinkedHashMap<>();
+
+    static {
+        NATIVE_PROJECTION_SORT.put("id", "m.member_id");
+        NATIVE_PROJECTION_SORT.put("username", "m.username");
+        NATIVE_PROJECTION_SORT.put("teamName", "t.name");
+    }
+
+    private final EntityManager em;
+    private final CountCache countCache;
+    private final MemberNearCache memberNearCache;
+    private final PlatformTransactionManager transactionManager;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}")
+    private int batchSize;
+
+    @Value("${datajpa.multi-get.chunk-size:512}")
+    private int multiGetChunkSize;
+
+    @Override
+    public Optional<MemberSnapshot> findByIdCached(Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("id는 null일 수 없습니다.");
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return Optional.ofNullable(em.find(Member.class, id)).map(MemberSnapshot::of);
+        }
+        return memberNearCache.get(id, key -> {
+            Member member = em.find(Member.class, key);
+            if (member == null) {
+                return Optional.empty();
+            }
+            //open-in-view면 요청의 영속성 컨텍스트가 관리중이므로 준영속으로 (캐시에는 스냅샷만 들어감)
+            em.detach(member);
+            return Optional.of(MemberSnapshot.of(member));
+        });
+    }
+
+    @Override
+    public List<Member> findAllByIdsInOrder(Collection<Long> ids) {
+        Map<Long, Member> found = new HashMap<>();
+        for (List<Long> chunk : chunks(ids)) {
+            List<Member> members = em.createQuery("select m from Member m left join fetch m.team where m.id in :ids", Member.class)
+                    .setParameter("ids", chunk)
+                    .getResultList();
+            for (Member member : members) {
+                found.put(member.getId(), member);
+            }
+        }
+
+        List<Member> result = new ArrayList<>(found.size());
+        for (Long id : new LinkedHashSet<>(ids)) {
+            Member member = found.get(id);
+            if (member != null) {
+                result.add(member);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Member> findByNamesInOrder(Collection<String> names) {
+        Map<String, List<Member>> found = new HashMap<>();
+        for (List<String> chunk : chunks(names)) {
+            List<Member> members = em.createQuery("select m from Member m left join fetch m.team where m.username in :names order by m.id", Member.class)
+                    .setParameter("names", chunk)
+                    .getResultList();
+            for (Member member : members) {
+                found.computeIfAbsent(member.getUsername(), username -> new ArrayList<>()).add(member);
+            }
+        }
+
+        List<Member> result = new ArrayList<>();
+        for (String name : new LinkedHashSet<>(names)) {
+            List<Member> members = found.get(name);
+            if (members != null) {
+                result.addAll(members);
+            }
+        }
+        return result;
+    }
+
+    //중복, null을 빼고 multiGetChunkSize개씩 나눈다.
+    private <T> List<List<T>> chunks(Collection<T> values) {
+        List<List<T>> chunks = new ArrayList<>();
+        List<T> chunk = new ArrayList<>(Math.min(values.size(), multiGetChunkSize));
+        for (T value : new LinkedHashSet<>(values)) {
+            if (value == null) {
+                continue;
+            }
+            chunk.add(value);
+            if (chunk.size() == multiGetChunkSize) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>(multiGetChunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    /**
+     * 컨텐츠 쿼리는 매번 날리고 count만 캐시에서 가져온다. (나이별로 캐시)
+     * PageableExecutionUtils는 첫 페이지인데 size보다 적게 나오거나 마지막 페이지면 count 자체를 생략해줌
+     * age 조건이 있으므로 테이블 전체 추정 건수(estimateMemberCount)는 쓰지 않는다.
+     */
+    @Override
+    public Page<Member> findByAgeWithCountCache(int age, Pageable pageable) {
+        String jpql = QueryUtils.applySorting("select m from Member m left join fetch m.team where m.age = :age", pageable.getSort(), "m");
+        List<Member> content = em.createQuery(jpql, Member.class)
+                .setParameter("age", age)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> countCache.count("Member.findByAge:" + age,
+                        () -> em.createQuery("select count(m) from Member m where m.age = :age", Long.class)
+                                .setParameter("age", age)
+                                .getSingleResult(),
+                        null));
+    }
+
+    @Override
+    public List<Member> search(MemberSearchCondition condition) {
+        boolean username = StringUtils.hasText(condition.getUsername());
+        boolean teamName = StringUtils.hasText(condition.getTeamName());
+        boolean ageGoe = condition.getAgeGoe() != null;
+        boolean ageLoe = condition.getAgeLoe() != null;
+
+        //값은 항상 바인딩 파라미터 -> 조건 조합이 같으면 JPQL 문자열이 같으므로 Hibernate 쿼리 플랜 캐시가 hit
+        StringBuilder sb = new StringBuilder("select m from Member m");
+        if (teamName) {
+            sb.append(" join m.team t");
+        }
+        List<String> where = new ArrayList<>();
+        if (username) {
+            where.add("m.username = :username");
+        }
+        if (teamName) {
+            where.add("t.name = :teamName");
+        }
+        if (ageGoe) {
+            where.add("m.age >= :ageGoe");
+        }
+        if (ageLoe) {
+            where.add("m.age <= :ageLoe");
+        }
+        if (!where.isEmpty()) {
+            sb.append(" where ").append(String.join(" and ", where));
+        }
+
+        TypedQuery<Member> query = em.createQuery(sb.toString(), Member.class);
+        if (username) {
+            query.setParameter("username", condition.getUsername());
+        }
+        if (teamName) {
+            query.setParameter("teamName", condition.getTeamName());
+        }
+        if (ageGoe) {
+            query.setParameter("ageGoe", condition.getAgeGoe());
+        }
+        if (ageLoe) {
+            query.setParameter("ageLoe", condition.getAgeLoe());
+        }
+        return query.getResultList();
+    }
+
+    @Override
+    public Slice<Member> findSliceByExample(Example<Member> example, Pageable pageable) {
+        ExampleMatcher matcher = example.getMatcher();
+        if (!isFastPathSupported(matcher)) {
+            return findSliceByExampleCriteria(example, pageable);
+        }
+
+        //값이 있는 속성만 조건으로 (값은 바인딩 파라미터라 같은 조합이면 JPQL이 같다)
+        ExampleProbeMetadata metadata = ExampleProbeMetadata.of(em.getMetamodel(), example.getProbeType(), matcher);
+        Member probe = example.getProbe();
+        List<ExampleProbeMetadata.ProbeProperty> present = new ArrayList<>();
+        List<Object> values = new ArrayList<>();
+        for (ExampleProbeMetadata.ProbeProperty property : metadata.getProperties()) {
+            Object value = property.read(probe);
+            if (value != null) {
+                present.add(property);
+                values.add(value);
+            }
+        }
+
+        String jpql = exampleJpql(present, matcher);
+        TypedQuery<Member> query = em.createQuery(QueryUtils.applySorting(jpql, pageable.getSort(), "m"), Member.class);
+        int index = 0;
+        for (int i = 0; i < present.size(); i++) {
+            ExampleProbeMetadata.ProbeProperty property = present.get(i);
+            if (property.isJoin()) {
+                continue;
+            }
+            Object value = values.get(i);
+            if (property.isString()) {
+                value = likeValue((String) value, matcher);
+            }
+            query.setParameter("p" + index++, value);
+        }
+        return toSlice(query, pageable);
+    }
+
+    private boolean isFastPathSupported(ExampleMatcher matcher) {
+        return matcher.getNullHandler() == ExampleMatcher.NullHandler.IGNORE
+                && !matcher.getPropertySpecifiers().hasValues()
+                && matcher.getDefaultStringMatcher() != ExampleMatcher.StringMatcher.REGEX;
+    }
+
+    //QueryByExamplePredicateBuilder와 같은 조건을 JPQL로 (연관관계는 내부 조인)
+    private String exampleJpql(List<ExampleProbeMetadata.ProbeProperty> present, ExampleMatcher matcher) {
+        StringBuilder joins = new StringBuilder();
+        List<String> conditions = new ArrayList<>();
+        int index = 0;
+        for (ExampleProbeMetadata.ProbeProperty property : present) {
+            if (property.isJoin()) {
+                joins.append(" join m.").append(property.getAttribute()).append(" j_").append(property.getAttribute());
+                continue;
+            }
+            String alias = property.getAssociation() == null ? "m" : "j_" + property.getAssociation();
+            String expression = alias + "." + property.getAttribute();
+            String parameter = ":p" + index++;
+            if (!property.isString()) {
+                conditions.add(expression + " = " + parameter);
+                continue;
+            }
+            if (matcher.isIgnoreCaseEnabled()) {
+                expression = "lower(" + expression + ")";
+            }
+            ExampleMatcher.StringMatcher stringMatcher = matcher.getDefaultStringMatcher();
+            boolean like = stringMatcher == ExampleMatcher.StringMatcher.STARTING
+                    || stringMatcher == ExampleMatcher.StringMatcher.ENDING
+                    || stringMatcher == ExampleMatcher.StringMatcher.CONTAINING;
+            conditions.add(expression + (like ? " like " + parameter + " escape '\\'" : " = " + parameter));
+        }
+
+        StringBuilder jpql = new StringBuilder("select m from Member m").append(joins);
+        if (!conditions.isEmpty()) {
+            String operator = matcher.getMatchMode() == ExampleMatcher.MatchMode.ANY ? " or " : " and ";
+            jpql.append(" where ").append(String.join(operator, conditions));
+        }
+        return jpql.toString();
+    }
+
+    private String likeValue(String value, ExampleMatcher matcher) {
+        if (matcher.isIgnoreCaseEnabled()) {
+            value = value.toLowerCase();
+        }
+        String escaped = value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        switch (matcher.getDefaultStringMatcher()) {
+            case STARTING:
+                return escaped + "%";
+            case ENDING:
+                return "%" + escaped;
+            case CONTAINING:
+                return "%" + escaped + "%";
+            default:
+                return value;
+        }
+    }
+
+    //빠른 경로를 쓸 수 없는 matcher는 스프링 기본 구현으로 (count 없이 Slice로 반환하는 것만 같음)
+    private Slice<Member> findSliceByExampleCriteria(Example<Member> example, Pageable pageable) {
+        CriteriaBuilder builder = em.getCriteriaBuilder();
+        CriteriaQuery<Member> criteria = builder.createQuery(Member.class);
+        Root<Member> root = criteria.from(Member.class);
+        Predicate predicate = QueryByExamplePredicateBuilder.getPredicate(root, builder, example);
+        if (predicate != null) {
+            criteria.where(predicate);
+        }
+        criteria.orderBy(QueryUtils.toOrders(pageable.getSort(), root, builder));
+        return toSlice(em.createQuery(criteria), pageable);
+    }
+
+    //size + 1개를 조회해서 넘치면 다음 페이지가 있다.
+    private Slice<Member> toSlice(TypedQuery<Member> query, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(query.getResultList(), pageable, false);
+        }
+        List<Member> content = query.setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+        boolean hasNext = content.size() > pageable.getPageSize();
+        if (hasNext) {
+            content = content.subList(0, pageable.getPageSize());
+        }
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    /**
+     * 네이티브 조회는 JdbcTemplate + RowMapper로 (ProjectionRowMappers)
+     * JPA를 거치지 않으므로 같은 트랜잭션에서 아직 flush 안된 변경이 보이도록 먼저 flush
+     * 정렬은 MemberProjection 속성(NATIVE_PROJECTION_SORT)만 가능, 같은 값끼리는 id 순
+     */
+    @Override
+    public Page<MemberProjection> findByNativeProjectionWithCountCache(Pageable pageable) {
+        em.flush();
+        List<MemberProjection> content = jdbcTemplate.query(
+                "select m.member_id, m.username, t.name from member m left join team t on m.team_id = t.team_id" +
+                        " order by " + nativeProjectionOrderBy(pageable.getSort()) + " limit ? offset ?",
+                ProjectionRowMappers.MEMBER_PROJECTION, pageable.getPageSize(), pageable.getOffset());
+
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> countCache.count("Member.findByNativeProjection",
+                        () -> jdbcTemplate.queryForObject("select count(*) from member", Long.class),
+                        this::estimateMemberCount));
+    }
+
+    //정렬 속성은 컬럼으로 바꿔서 넣는다. (SQL에 그대로 붙이므로 목록에 없는 속성은 예외)
+    private String nativeProjectionOrderBy(Sort sort) {
+        StringBuilder orderBy = new StringBuilder();
+        for (Sort.Order order : sort) {
+            String column = NATIVE_PROJECTION_SORT.get(order.getProperty());
+            if (column == null) {
+                throw new IllegalArgumentException("정렬할 수 없는 속성입니다. property = " + order.getProperty()
+                        + ", 가능한 속성 = " + NATIVE_PROJECTION_SORT.keySet());
+            }
+            orderBy.append(order.isIgnoreCase() ? "lower(" + column + ")" : column)
+                    .append(order.isAscending() ? " asc, " : " desc, ");
+        }
+        return orderBy.append("m.member_id").toString();
+    }
+
+    @Override
+    public long forEachNativeProjection(Consumer<MemberProjection> consumer) {
+        em.flush();
+        long[] count = {0};
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                    "select m.member_id, m.username, t.name from member m left join team t on m.team_id = t.team_id" +
+                            " order by m.member_id");
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(ProjectionRowMappers.MEMBER_PROJECTION.mapRow(rs, (int) count[0]++)));
+        return count[0];
+    }
+
+    @Override
+    public List<NestedClosedProjections> findNestedClosedProjectionsByUsername(String username) {
+        em.flush();
+        return jdbcTemplate.query("select m.username, t.team_id, t.name from member m" +
+                        " left join team t on m.team_id = t.team_id where m.username = ?",
+                ProjectionRowMappers.NESTED_CLOSED_PROJECTIONS, username);
+    }
+
+    @Override
+    public List<UsernameOnly> findUsernameOnlyByUsername(String username) {
+        em.flush();
+        return jdbcTemplate.query("select m.username, m.age from member m where m.username = ?",
+                ProjectionRowMappers.USERNAME_ONLY, username);
+    }
+
+    @Override
+    public int saveAllInBatch(Iterable<Member> members) {
+        int count = 0;
+        for (Member member : members) {
+            em.persist(member);
+            count++;
+            if (batchSize > 0 && count % batchSize == 0) { //batch_size 0이면 batch를 끈 것이므로 마지막에 한번만 flush
+                em.flush(); //모아둔 insert를 batch로 전송
+                em.clear(); //저장 끝난 엔티티는 영속성 컨텍스트에서 제거
+            }
+        }
+        em.flush();
+        em.clear();
+        return count;
+    }
+
+    @Override
+    public BulkUpdateResult bulkAgePlusInChunks(int age, int chunkSize, int commitInterval) {
+        if (chunkSize < 1 || commitInterval < 1) {
+            throw new IllegalArgumentException("chunkSize, commitInterval은 1 이상이어야 합니다.");
+        }
+        long start = System.nanoTime();
+
+        Object[] range = em.createQuery("select min(m.id), max(m.id) from Member m where m.age >= :age", Object[].class)
+                .setParameter("age", age)
+                .getSingleResult();
+        if (range[0] == null) {
+            return new BulkUpdateResult(0, 0, 0, 0);
+        }
+        long minId = (Long) range[0];
+        long maxId = (Long) range[1];
+        int totalChunks = (int) ((maxId - minId) / chunkSize + 1);
+
+        boolean inTransaction = TransactionSynchronizationManager.isActualTransactionActive();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        long updated = 0;
+        int chunks = 0;
+        int commits = 0;
+        long from = minId;
+        while (from <= maxId) {
+            long commitFrom = from;
+            //트랜잭션 밖이면 commitInterval개 청크마다 새 트랜잭션 (끝나면 커밋되면서 락 해제)
+            long commitTo = inTransaction ? maxId : Math.min(maxId, from + (long) chunkSize * commitInterval - 1);
+            Long rows = inTransaction
+                    ? updateChunks(age, commitFrom, commitTo, chunkSize)
+                    : tx.execute(status -> updateChunks(age, commitFrom, commitTo, chunkSize));
+
+            updated += rows;
+            chunks += (int) ((commitTo - commitFrom) / chunkSize + 1);
+            commits++;
+            from = commitTo + 1;
+
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            log.info("bulkAgePlusInChunks 진행 : 청크 {}/{}, {}건 수정, {} rows/sec",
+                    chunks, totalChunks, updated, updated * 1000 / Math.max(elapsedMillis, 1));
+        }
+        return new BulkUpdateResult(updated, chunks, inTransaction ? 0 : commits, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    //[from, to] 범위를 chunkSize씩 update
+    private long updateChunks(int age, long from, long to, int chunkSize) {
+        long updated = 0;
+        for (long lo = from; lo <= to; lo += chunkSize) {
+            long hi = Math.min(to, lo + chunkSize - 1);
+            updated += em.createQuery("update Member m set m.age = m.age + 1" +
+                    " where m.age >= :age and m.id between :lo and :hi")
+                    .setParameter("age", age)
+                    .setParameter("lo", lo)
+                    .setParameter("hi", hi)
+                    .executeUpdate();
+            detachMembers(age, lo, hi);
+        }
+        return updated;
+    }
+
+    /**
+     * 벌크 수정은 영속성 컨텍스트를 거치지 않으므로 이미 올라와있는 Member는 옛날 나이를 들고 있다.
+     * 전체 clear 대신 이번 청크에서 수정된(범위 안 + 수정 전 나이가 age 이상) Member만 detach
+     * -> 다음에 조회하면 DB에서 새로 읽어옴, 다른 엔티티는 그대로 영속 상태 유지
+     */
+    private void detachMembers(int age, long lo, long hi) {
+        Map<EntityKey, Object> entities = em.unwrap(SessionImplementor.class).getPersistenceContext().getEntitiesByKey();
+        List<Member> stale = new ArrayList<>();
+        for (Object entity : entities.values()) {
+            if (entity instanceof Member) {
+                Member member = (Member) entity;
+                if (member.getId() >= lo && member.getId() <= hi && member.getAge() >= age) {
+                    stale.add(member);
+                }
+            }
+        }
+        stale.forEach(em::detach);
+    }
+
+    //H2 통계의 추정 건수 (조건 없는 전체 count 대신으로만 사용)
+    private long estimateMemberCount() {
+        Object estimate = em.createNativeQuery("select row_count_estimate from information_schema.tables" +
+                " where table_schema = schema() and table_name = 'MEMBER'")
+                .getSingleResult();
+        return ((Number) estimate).longValue();
+    }
+}
@@ -2,13 +2,41 @@ package study.datajpa.repository;
 
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.util.StringUtils;
+import study.datajpa.dto.MemberSearchCondition;
 import study.datajpa.entity.Member;
 import study.datajpa.entity.Team;
 
 import javax.persistence.criteria.*;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * Specification은 호출할때마다 Criteria를 새로 만들고 JPQL로 렌더링한다. (값은 literal_handling_mode: bind로 파라미터)
+ * 같은 조건을 자주 검색하는 곳은 MemberRepository.search(MemberSearchCondition)를 쓸것 (Criteria 없이 JPQL, MemberSearchBenchmark)
+ */
 public class MemberSpec {
 
+    //search(condition)와 같은 조건의 Specification 버전
+    public static Specification<Member> of(MemberSearchCondition condition) {
+        return (Specification<Member>) (root, query, builder) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (StringUtils.hasText(condition.getUsername())) {
+                predicates.add(builder.equal(root.get("username"), condition.getUsername()));
+            }
+            if (StringUtils.hasText(condition.getTeamName())) {
+                Join<Member, Team> t = root.join("team", JoinType.INNER);
+                predicates.add(builder.equal(t.get("name"), condition.getTeamName()));
+            }
+            if (condition.getAgeGoe() != null) {
+                predicates.add(builder.greaterThanOrEqualTo(root.get("age"), condition.getAgeGoe()));
+            }
+            if (condition.getAgeLoe() != null) {
+                predicates.add(builder.lessThanOrEqualTo(root.get("age"), condition.getAgeLoe()));
+            }
+            return builder.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
     public static Specification<Member> teamName(final String teamName) {
        return (Specification<Member>) (root, query, builder) -> {
 
@@ -0,0 +1,95 @@
+package study.datajpa.repository;
+
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * 프로젝션 인터페이스를 프록시 없이 JDBC ResultSet에서 바로 채우는 RowMapper 모음
+ * 스프링 데이터 프로젝션은 row마다 JDK 동적 프록시 + 튜플 Map을 만들고 getter를 부를때마다 프록시를 거친다.
+ * 여기서는 컬럼 순서대로 읽어서 일반 클래스에 담으므로 row당 객체 하나(중첩 프로젝션은 둘)만 생긴다.
+ * SELECT 절의 컬럼 순서와 반드시 맞출것
+ */
+public final class ProjectionRowMappers {
+
+    //select member_id, username, team_name
+    public static final RowMapper<MemberProjection> MEMBER_PROJECTION =
+            (rs, rowNum) -> new MemberProjectionRow(rs.getLong(1), rs.getString(2), rs.getString(3));
+
+    //select username, team_id, team_name
+    public static final RowMapper<NestedClosedProjections> NESTED_CLOSED_PROJECTIONS =
+            (rs, rowNum) -> new NestedClosedProjectionsRow(rs.getString(1), rs.getObject(2) != null, rs.getString(3));
+
+    //select username, age -> UsernameOnly의 SpEL(username + '  ' + age)을 자바 코드로
+    public static final RowMapper<UsernameOnly> USERNAME_ONLY =
+            (rs, rowNum) -> new UsernameOnlyRow(rs.getString(1) + "  " + rs.getInt(2));
+
+    private ProjectionRowMappers() {
+    }
+
+    static final class MemberProjectionRow implements MemberProjection {
+        private final Long id;
+        private final String username;
+        private final String teamName;
+
+        MemberProjectionRow(Long id, String username, String teamName) {
+            this.id = id;
+            this.username = username;
+            this.teamName = teamName;
+        }
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public String getUsername() {
+            return username;
+        }
+
+        @Override
+        public String getTeamName() {
+            return teamName;
+        }
+    }
+
+    static final class NestedClosedProjectionsRow implements NestedClosedProjections, NestedClosedProjections.TeamInfo {
+        private final String username;
+        private final boolean hasTeam;
+        private final String teamName;
+
+        NestedClosedProjectionsRow(String username, boolean hasTeam, String teamName) {
+            this.username = username;
+            this.hasTeam = hasTeam;
+            this.teamName = teamName;
+        }
+
+        @Override
+        public String getUsername() {
+            return username;
+        }
+
+        //팀이 없으면 null (스프링 데이터 프로젝션과 같음)
+        @Override
+        public TeamInfo getTeam() {
+            return hasTeam ? this : null;
+        }
+
+        @Override
+        public String getName() {
+            return teamName;
+        }
+    }
+
+    static final class UsernameOnlyRow implements UsernameOnly {
+        private final String username;
+
+        UsernameOnlyRow(String username) {
+            this.username = username;
+        }
+
+        @Override
+        public String getUsername() {
+            return username;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package study.datajpa.repository;
 
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.entity.Member;
 import study.datajpa.entity.Team;
 
@@ -10,18 +11,21 @@ import java.util.List;
 import java.util.Optional;
 //어노테이션은 두가지를 한다 1. 컴포넌트 스캔 2. JPA예외를 스프링에서 공통적으로 처리할수있는 예외로 변환하는 기능까지 포함
 @Repository
+@Transactional(readOnly = true) //조회는 읽기 전용 트랜잭션 (FlushMode.MANUAL, 스냅샷 없음), 쓰기 메서드만 @Transactional
 public class TeamJpaRepository {
 
     @PersistenceContext //JPA의 EntityManager 인젝션해주는 어노테이션
     private EntityManager em;
 
     //저장
+    @Transactional
     public Team save(Team team) {
         em.persist(team);
         return team;
     }
 
     //삭제
+    @Transactional
     public void delete(Team team) {
         em.remove(team);
     }
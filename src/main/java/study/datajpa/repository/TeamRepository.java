@@ -3,5 +3,9 @@ package study.datajpa.repository;
 import org.springframework.data.jpa.repository.JpaRepository;
 import study.datajpa.entity.Team;
 
+/**
+ * 팀 + 멤버 목록을 페이징해야 할 때는 컬렉션 fetch join을 하지 말고 findAll(pageable)로 팀만 페이징한 뒤
+ * team.getMembers()를 꺼내면 @BatchSize 덕분에 페이지의 팀들의 멤버가 IN 쿼리 한번으로 로딩된다.
+ */
 public interface TeamRepository extends JpaRepository<Team, Long> {
 }
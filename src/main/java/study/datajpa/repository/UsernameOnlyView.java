@@ -0,0 +1,17 @@
+package study.datajpa.repository;
+
+import study.datajpa.entity.Member;
+import study.datajpa.projection.Derived;
+import study.datajpa.projection.GenerateProjection;
+
+/**
+ * UsernameOnly(Open Projection)의 컴파일 타임 버전
+ * UsernameOnly는 SpEL 때문에 엔티티 전체를 조회하고 row마다 SpEL을 평가한다.
+ * 이건 컴파일할때 UsernameOnlyViewImpl이 생성되고 username, age만 조회해서 자바 코드로 계산 (projection-processor 모듈)
+ */
+@GenerateProjection(entity = Member.class)
+public interface UsernameOnlyView {
+
+    @Derived(value = "username + \"  \" + age", uses = {"username", "age"})
+    String getUsername();
+}
@@ -0,0 +1,35 @@
+package study.datajpa.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.Getter;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * 샤드 하나 = DB 하나 + 그 DB 전용 EntityManagerFactory
+ * 샤드마다 영속성 컨텍스트가 따로라서 스프링의 공유 EntityManager(@PersistenceContext)를 쓰지 않고 직접 열고 닫는다.
+ */
+@Getter
+public class Shard implements AutoCloseable {
+
+    private final int index;
+    private final HikariDataSource dataSource;
+    private final EntityManagerFactory entityManagerFactory;
+
+    public Shard(int index, HikariDataSource dataSource, EntityManagerFactory entityManagerFactory) {
+        this.index = index;
+        this.dataSource = dataSource;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    public EntityManager createEntityManager() {
+        return entityManagerFactory.createEntityManager();
+    }
+
+    @Override
+    public void close() {
+        entityManagerFactory.close();
+        dataSource.close();
+    }
+}
@@ -0,0 +1,89 @@
+package study.datajpa.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import study.datajpa.entity.Member;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Member 샤딩 (opt-in) : datajpa.sharding.enabled=true + datajpa.sharding.urls
+ * 기존 DataSource / EntityManager(MemberRepository 등)는 그대로 두고 샤드 DB마다 DataSource + EntityManagerFactory를 따로 만든다.
+ * 스키마는 샤드마다 같은 Flyway 마이그레이션을 적용하고 member_seq만 샤드별 시작값으로 옮긴다.
+ * 샤드 clean은 datajpa.sharding.clean-on-startup으로만 켠다. (기본 DB의 datajpa.schema.clean-on-startup을 따라가지 않음)
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "datajpa.sharding.enabled", havingValue = "true")
+@EnableConfigurationProperties(ShardProperties.class)
+public class ShardConfig {
+
+    @Bean(destroyMethod = "close")
+    public ShardedMemberRepository shardedMemberRepository(ShardProperties shardProperties,
+                                                           EntityManagerFactoryBuilder builder,
+                                                           JpaProperties jpaProperties,
+                                                           HibernateProperties hibernateProperties) {
+        //네이밍 전략 등 스프링 부트가 기본 EntityManagerFactory에 넣는 설정을 샤드에도 똑같이
+        Map<String, Object> properties = hibernateProperties.determineHibernateProperties(
+                jpaProperties.getProperties(), new HibernateSettings());
+
+        List<Shard> shards = new ArrayList<>();
+        for (int i = 0; i < shardProperties.getUrls().size(); i++) {
+            shards.add(createShard(i, shardProperties, builder, properties));
+        }
+        return new ShardedMemberRepository(shards);
+    }
+
+    //샤드 하나 (DataSource + 마이그레이션 + EntityManagerFactory), 테스트에서는 스프링 컨텍스트 없이 직접 호출
+    static Shard createShard(int index, ShardProperties shardProperties, EntityManagerFactoryBuilder builder,
+                             Map<String, Object> properties) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("datajpa-shard-" + index);
+        dataSource.setJdbcUrl(shardProperties.getUrls().get(index));
+        dataSource.setUsername(shardProperties.getUsername());
+        dataSource.setPassword(shardProperties.getPassword());
+        dataSource.setMaximumPoolSize(shardProperties.getMaximumPoolSize());
+
+        migrate(dataSource, index, shardProperties.isCleanOnStartup());
+
+        LocalContainerEntityManagerFactoryBean factoryBean = builder.dataSource(dataSource)
+                .packages(Member.class)
+                .persistenceUnit("shard" + index)
+                .properties(properties)
+                .build();
+        factoryBean.afterPropertiesSet(); //빈으로 등록하지 않으므로 직접 초기화
+        log.info("샤드 {} 준비 완료 : {}", index, shardProperties.getUrls().get(index));
+        return new Shard(index, dataSource, factoryBean.getObject());
+    }
+
+    //스키마 생성 + member_seq를 샤드 시작값(i << 40)으로 (이미 그보다 크면 그대로)
+    private static void migrate(HikariDataSource dataSource, int shard, boolean cleanOnStartup) {
+        Flyway flyway = Flyway.configure().dataSource(dataSource).load();
+        if (cleanOnStartup) {
+            flyway.clean();
+        }
+        flyway.migrate();
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        long base = ShardRouter.baseId(shard);
+        Long current = jdbcTemplate.queryForObject(
+                "select current_value from information_schema.sequences where sequence_name = 'MEMBER_SEQ'", Long.class);
+        if (current != null && current < base) {
+            //pooled 시퀀스라 첫 값은 (시작값 - allocationSize)부터 쓰이므로 allocationSize만큼 더해서 시작
+            jdbcTemplate.execute("alter sequence member_seq restart with " + (base + Member.ID_ALLOCATION_SIZE));
+        }
+    }
+}
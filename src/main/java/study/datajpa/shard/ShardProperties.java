@@ -0,0 +1,23 @@
+package study.datajpa.shard;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * datajpa.sharding.* (application.yml)
+ */
+@Getter @Setter
+@ConfigurationProperties("datajpa.sharding")
+public class ShardProperties {
+
+    private boolean enabled;
+    private List<String> urls = new ArrayList<>(); //순서 = 샤드 번호 (바꾸면 id -> 샤드 매핑이 깨짐)
+    private String username = "sa";
+    private String password = "";
+    private int maximumPoolSize = 5;
+    private boolean cleanOnStartup; //true면 기동할때 샤드 스키마를 지우고 다시 마이그레이션 (datajpa.schema.clean-on-startup과 별개)
+}
@@ -0,0 +1,41 @@
+package study.datajpa.shard;
+
+/**
+ * 샤드 키 계산
+ * - id : 상위 비트가 샤드 번호 (샤드 i의 member_seq는 i << 40 부터 시작) -> id만 보고 바로 샤드를 찾는다.
+ * - username : 새 회원을 어느 샤드에 넣을지 (username 해시)
+ * 샤드당 id는 2^40개(약 1조)까지
+ */
+public class ShardRouter {
+
+    public static final int SHARD_BITS = 40;
+
+    private final int shardCount;
+
+    public ShardRouter(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("샤드는 1개 이상이어야 합니다.");
+        }
+        this.shardCount = shardCount;
+    }
+
+    public static long baseId(int shard) {
+        return (long) shard << SHARD_BITS;
+    }
+
+    public int shardOf(long id) {
+        int shard = (int) (id >>> SHARD_BITS);
+        if (shard >= shardCount) {
+            throw new IllegalArgumentException("샤드를 찾을 수 없는 id 입니다 : " + id);
+        }
+        return shard;
+    }
+
+    public int shardOf(String username) {
+        return username == null ? 0 : Math.floorMod(username.hashCode(), shardCount);
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+}
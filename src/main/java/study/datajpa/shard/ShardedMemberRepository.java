@@ -0,0 +1,196 @@
+package study.datajpa.shard;
+
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * 샤드를 알고 있는 Member 리포지토리
+ * - save, findById : 샤드 하나로 라우팅 (새 회원은 username 해시, 기존 회원은 id 상위 비트)
+ * - findByUsername, findAll, findByAge, count : 모든 샤드에 동시에 날리고(scatter) 합친다(gather)
+ *   (username은 바뀔 수 있으므로 - 이름을 바꾼 회원은 원래 샤드에 그대로 있다 - username 해시로 찾지 않는다)
+ *
+ * 페이징은 샤드마다 offset + size개를 정렬해서 가져온 뒤 합쳐서 다시 정렬하고 잘라낸다.
+ * -> 뒤쪽 페이지일수록 샤드 수 * offset 만큼 읽으므로 깊은 페이지는 키셋 페이징을 쓸것
+ *
+ * 주의 : Member.team은 같은 샤드에 있어야 한다. (샤드를 넘는 조인은 불가)
+ */
+public class ShardedMemberRepository implements AutoCloseable {
+
+    private final List<Shard> shards;
+    private final ShardRouter router;
+    private final ExecutorService executor;
+
+    public ShardedMemberRepository(List<Shard> shards) {
+        this.shards = new ArrayList<>(shards);
+        this.router = new ShardRouter(shards.size());
+        this.executor = Executors.newFixedThreadPool(shards.size(), runnable -> {
+            Thread thread = new Thread(runnable, "shard-query");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public Member save(Member member) {
+        int shard = member.getId() == null ? router.shardOf(member.getUsername()) : router.shardOf(member.getId());
+        return inTransaction(shard, em -> {
+            if (member.getId() == null) {
+                em.persist(member);
+                return member;
+            }
+            return em.merge(member);
+        });
+    }
+
+    public Optional<Member> findById(Long id) {
+        return Optional.ofNullable(read(router.shardOf(id), em -> em.find(Member.class, id)));
+    }
+
+    public List<Member> findByUsername(String username) {
+        List<Member> members = new ArrayList<>();
+        scatter(em -> em.createQuery("select m from Member m where m.username = :username", Member.class)
+                .setParameter("username", username)
+                .getResultList())
+                .forEach(members::addAll);
+        return members;
+    }
+
+    public Page<Member> findAll(Pageable pageable) {
+        return scatterPage("select m from Member m", "select count(m) from Member m", null, pageable);
+    }
+
+    public Page<Member> findByAge(int age, Pageable pageable) {
+        return scatterPage("select m from Member m where m.age = :age",
+                "select count(m) from Member m where m.age = :age", age, pageable);
+    }
+
+    public long count() {
+        long total = 0;
+        for (Long count : scatter(em -> em.createQuery("select count(m) from Member m", Long.class).getSingleResult())) {
+            total += count;
+        }
+        return total;
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    public int shardOf(Long id) {
+        return router.shardOf(id);
+    }
+
+    private Page<Member> scatterPage(String jpql, String countJpql, Integer age, Pageable pageable) {
+        //샤드끼리 합칠때 순서가 같도록 id를 마지막 정렬 조건으로
+        Sort sort = pageable.getSort().getOrderFor("id") == null ? pageable.getSort().and(Sort.by("id")) : pageable.getSort();
+        String sorted = QueryUtils.applySorting(jpql, sort, "m");
+        int limit = pageable.isPaged() ? (int) pageable.getOffset() + pageable.getPageSize() : Integer.MAX_VALUE;
+
+        List<List<Member>> results = scatter(em -> {
+            TypedQuery<Member> query = em.createQuery(sorted, Member.class).setMaxResults(limit);
+            if (age != null) {
+                query.setParameter("age", age);
+            }
+            return query.getResultList();
+        });
+        List<Long> counts = scatter(em -> {
+            TypedQuery<Long> query = em.createQuery(countJpql, Long.class);
+            if (age != null) {
+                query.setParameter("age", age);
+            }
+            return query.getSingleResult();
+        });
+
+        List<Member> merged = new ArrayList<>();
+        results.forEach(merged::addAll);
+        merged.sort(comparator(sort));
+
+        long total = counts.stream().mapToLong(Long::longValue).sum();
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(merged, pageable, total);
+        }
+        int from = (int) Math.min(pageable.getOffset(), merged.size());
+        int to = Math.min(from + pageable.getPageSize(), merged.size());
+        return new PageImpl<>(new ArrayList<>(merged.subList(from, to)), pageable, total);
+    }
+
+    //Sort를 메모리 정렬용 Comparator로 (null은 앞으로)
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Comparator<Member> comparator(Sort sort) {
+        Comparator<Member> result = null;
+        for (Sort.Order order : sort) {
+            Comparator<Member> comparator = Comparator.comparing(
+                    member -> (Comparable) new BeanWrapperImpl(member).getPropertyValue(order.getProperty()),
+                    Comparator.nullsFirst(Comparator.naturalOrder()));
+            if (order.isDescending()) {
+                comparator = comparator.reversed();
+            }
+            result = result == null ? comparator : result.thenComparing(comparator);
+        }
+        return result;
+    }
+
+    //모든 샤드에 동시에 실행, 결과는 샤드 순서대로
+    private <T> List<T> scatter(Function<EntityManager, T> work) {
+        List<CompletableFuture<T>> futures = new ArrayList<>();
+        for (Shard shard : shards) {
+            futures.add(CompletableFuture.supplyAsync(() -> read(shard.getIndex(), work), executor));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<T> future : futures) {
+            results.add(future.join());
+        }
+        return Collections.unmodifiableList(results);
+    }
+
+    //조회는 트랜잭션 없이 (반환된 엔티티는 준영속)
+    private <T> T read(int shard, Function<EntityManager, T> work) {
+        EntityManager em = shards.get(shard).createEntityManager();
+        try {
+            return work.apply(em);
+        } finally {
+            em.close();
+        }
+    }
+
+    private <T> T inTransaction(int shard, Function<EntityManager, T> work) {
+        EntityManager em = shards.get(shard).createEntityManager();
+        EntityTransaction tx = em.getTransaction();
+        try {
+            tx.begin();
+            T result = work.apply(em);
+            tx.commit();
+            return result;
+        } catch (RuntimeException e) {
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            throw e;
+        } finally {
+            em.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        shards.forEach(Shard::close);
+    }
+}
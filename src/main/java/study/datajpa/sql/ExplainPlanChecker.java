@@ -0,0 +1,144 @@
+package study.datajpa.sql;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.NamedQuery;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 기동시 리포지토리 대표 쿼리의 실행 계획 확인 (H2 EXPLAIN), 개발용 (local 프로필에서만 켠다)
+ * 쿼리는 실행하지 않는다. 리포지토리에 선언된 JPQL(@Query, @NamedQuery)을 Hibernate로 SQL로 변환만 해서 EXPLAIN 한다.
+ * (메서드 이름으로 만드는 쿼리, 사용자 정의 리포지토리 쿼리는 같은 JPQL을 여기에 적는다)
+ * 리포지토리에 조회 메서드가 추가되면 여기도 추가
+ * 실행 계획에 테이블 풀스캔(tableScan)이 나오면 경고 -> 인덱스를 db/migration에 추가할것
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "datajpa.schema.explain-check", havingValue = "true")
+public class ExplainPlanChecker implements ApplicationRunner {
+
+    private static final String TABLE_SCAN = ".tableScan";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SessionFactoryImplementor sessionFactory;
+    private final Map<String, List<String>> queries = new LinkedHashMap<>(); //라벨 -> JPQL
+
+    public ExplainPlanChecker(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+
+        queries.put("MemberRepository.findByUsername",
+                Collections.singletonList(Member.class.getAnnotation(NamedQuery.class).query()));
+        queries.put("MemberRepository.findByNames",
+                Collections.singletonList(repositoryQuery("findByNames", List.class)));
+        //메서드 이름으로 만드는 쿼리
+        queries.put("MemberRepository.findByUsernameAndAgeGreaterThan",
+                Collections.singletonList("select m from Member m where m.username = :username and m.age > :age"));
+        queries.put("MemberRepository.findUser",
+                Collections.singletonList(repositoryQuery("findUser", String.class, int.class)));
+        //MemberRepositoryImpl.findByAgeWithCountCache (컨텐츠, count)
+        queries.put("MemberRepository.findByAgeWithCountCache", Arrays.asList(
+                "select m from Member m left join fetch m.team where m.age = :age order by m.username desc",
+                "select count(m) from Member m where m.age = :age"));
+        queries.put("MemberRepository.bulkAgePlus",
+                Collections.singletonList(repositoryQuery("bulkAgePlus", int.class)));
+        //Team.members 지연로딩 -> @BatchSize로 team_id in (?, ...) 한번에 조회
+        queries.put("Team.members (batch fetch)",
+                Collections.singletonList("select m from Member m where m.team.id in :teamIds"));
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        for (String fullScan : findFullScans()) {
+            log.warn("풀스캔 쿼리 : {}", fullScan);
+        }
+    }
+
+    //풀스캔하는 쿼리 목록 (라벨 -> 실행 계획)
+    public List<String> findFullScans() {
+        List<String> fullScans = new ArrayList<>();
+        explainAll().forEach((label, plans) -> {
+            for (String plan : plans) {
+                if (plan.contains(TABLE_SCAN)) {
+                    fullScans.add(label + " -> " + plan);
+                }
+            }
+        });
+        return fullScans;
+    }
+
+    /**
+     * 대표 쿼리별 실행 계획 (라벨 -> 실행 계획 목록)
+     * H2가 아니면 비어있다.
+     */
+    public Map<String, List<String>> explainAll() {
+        Map<String, List<String>> plans = new LinkedHashMap<>();
+        if (!isH2()) {
+            return plans;
+        }
+        queries.forEach((label, jpqls) -> {
+            List<String> labelPlans = new ArrayList<>();
+            for (String jpql : jpqls) {
+                for (String sql : toSql(jpql)) {
+                    labelPlans.add(explain(sql));
+                }
+            }
+            plans.put(label, labelPlans);
+        });
+        return plans;
+    }
+
+    //JPQL -> SQL 변환만 (Hibernate 쿼리 플랜 캐시, 실행은 하지 않음)
+    private List<String> toSql(String jpql) {
+        return Arrays.asList(sessionFactory.getQueryPlanCache()
+                .getHQLQueryPlan(jpql, false, Collections.emptyMap())
+                .getSqlStrings());
+    }
+
+    private String repositoryQuery(String methodName, Class<?>... parameterTypes) {
+        try {
+            return MemberRepository.class.getMethod(methodName, parameterTypes).getAnnotation(Query.class).value();
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("MemberRepository." + methodName + " 메서드가 없습니다.", e);
+        }
+    }
+
+    //파라미터(?)는 값과 상관없이 실행 계획이 같으므로 null로 바인딩, EXPLAIN은 update/delete도 실행하지 않는다.
+    private String explain(String sql) {
+        Object[] args = new Object[countParameters(sql)];
+        String plan = jdbcTemplate.queryForObject("explain " + sql, String.class, args);
+        return plan == null ? "" : plan.replaceAll("\\s+", " ");
+    }
+
+    private int countParameters(String sql) {
+        int count = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            if (sql.charAt(i) == '?') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private boolean isH2() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        return "H2".equals(product);
+    }
+}
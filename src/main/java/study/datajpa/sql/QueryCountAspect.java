@@ -0,0 +1,44 @@
+package study.datajpa.sql;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * @Transactional 메서드 하나를 범위로 SQL 개수를 센다.
+ * 안쪽에서 또 @Transactional 메서드를 호출하면 바깥 범위에 합쳐서 센다.
+ * 메서드, 클래스 레벨 @Transactional 모두 대상 (study.datajpa 패키지의 스프링 빈만)
+ * Spring Data 리포지토리 프록시(구현체가 SimpleJpaRepository)는 대상이 아니므로
+ * 리포지토리를 직접 호출하는 쿼리는 그걸 감싸는 서비스 메서드나 HTTP 요청 범위(QueryCountInterceptor)에서 센다.
+ * 트랜잭션 어드바이스(기본 순서 LOWEST_PRECEDENCE)보다 바깥에서 돌아야 커밋할때 나가는 flush SQL까지 센다.
+ */
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+@RequiredArgsConstructor
+public class QueryCountAspect {
+
+    private final QueryCountPolicy queryCountPolicy;
+
+    @Around("(@within(org.springframework.transaction.annotation.Transactional) || @annotation(org.springframework.transaction.annotation.Transactional))"
+            + " && within(study.datajpa..*)")
+    public Object countQueries(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!QueryCounter.start()) {
+            return joinPoint.proceed();
+        }
+
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            QueryCounter.stop();
+            throw e;
+        }
+        queryCountPolicy.inspect(joinPoint.getSignature().toShortString(), QueryCounter.stop());
+        return result;
+    }
+}
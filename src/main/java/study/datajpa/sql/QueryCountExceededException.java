@@ -0,0 +1,8 @@
+package study.datajpa.sql;
+
+public class QueryCountExceededException extends RuntimeException {
+
+    public QueryCountExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,55 @@
+package study.datajpa.sql;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * HTTP 요청 하나를 범위로 SQL 개수를 센다.
+ * 응답이 이미 나간 뒤라 여기서는 예외를 던지지 않고 경고 로그만 남긴다.
+ *
+ * 비동기 요청(CompletableFuture 반환)은 afterCompletion이 처음 스레드가 아니라 재디스패치된 스레드에서 호출되므로
+ * 처음 스레드의 카운터는 afterConcurrentHandlingStarted에서 정리한다. (안하면 그 톰캣 스레드는 계속 측정중 상태로 남음)
+ * 재디스패치 때 preHandle이 다시 호출되어 그 스레드에서 새로 센다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class QueryCountInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String STARTED = QueryCountInterceptor.class.getName() + ".STARTED";
+
+    private final QueryCountPolicy queryCountPolicy;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(STARTED, QueryCounter.start());
+        return true;
+    }
+
+    //비동기 처리가 시작되면 처음 스레드는 바로 반납되므로 여기서 카운터를 버린다. (DB 작업은 jdbcExecutor 스레드에서 실행됨)
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (Boolean.TRUE.equals(request.getAttribute(STARTED))) {
+            QueryCounter.stop();
+            request.removeAttribute(STARTED);
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (!Boolean.TRUE.equals(request.getAttribute(STARTED))) {
+            return;
+        }
+        QueryStatistics statistics = QueryCounter.stop();
+        try {
+            queryCountPolicy.inspect(request.getMethod() + " " + request.getRequestURI(), statistics);
+        } catch (QueryCountExceededException e) {
+            log.warn(e.getMessage()); //이미 응답이 끝난 상태이므로 로그로만 남긴다.
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package study.datajpa.sql;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * p6spy 이벤트 리스너
+ * p6spy-spring-boot-starter가 JdbcEventListener 빈을 찾아서 등록해준다.
+ * 실행된 모든 statement(배치 포함)를 현재 스레드의 QueryCounter에 기록
+ * getSql()은 파라미터가 ?로 남아있는 SQL이라 같은 모양의 쿼리끼리 묶인다.
+ *
+ * 쿼리 실행 시간은 종류(select, insert, update, delete, other)별 히스토그램 타이머(datajpa.sql)로도 남긴다.
+ * (SQL 전체를 태그로 쓰면 메트릭 개수가 끝없이 늘어나므로 종류만)
+ */
+@Component
+public class QueryCountListener extends SimpleJdbcEventListener {
+
+    //DataSource를 만들때 같이 생성되므로 MeterRegistry는 처음 쓸때 꺼낸다. (순환 참조 방지)
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final ConcurrentHashMap<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public QueryCountListener(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        String sql = statementInformation.getSql();
+        QueryCounter.record(sql, timeElapsedNanos);
+        Timer timer = timer(statementType(sql), e == null ? "success" : "error");
+        if (timer != null) {
+            timer.record(timeElapsedNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer timer(String type, String outcome) {
+        String key = type + ":" + outcome;
+        Timer timer = timers.get(key);
+        if (timer != null) {
+            return timer;
+        }
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry == null) {
+            return null;
+        }
+        return timers.computeIfAbsent(key, k -> Timer.builder("datajpa.sql")
+                .description("SQL 실행 시간")
+                .tag("type", type)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    private String statementType(String sql) {
+        if (sql == null) {
+            return "other";
+        }
+        String trimmed = sql.trim();
+        int end = 0;
+        while (end < trimmed.length() && Character.isLetter(trimmed.charAt(end))) {
+            end++;
+        }
+        String keyword = trimmed.substring(0, end).toLowerCase();
+        switch (keyword) {
+            case "select":
+            case "insert":
+            case "update":
+            case "delete":
+                return keyword;
+            default:
+                return "other";
+        }
+    }
+}
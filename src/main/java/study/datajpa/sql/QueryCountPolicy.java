@@ -0,0 +1,62 @@
+package study.datajpa.sql;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 측정된 SQL 통계 검사
+ * 1. 범위 안에서 max-queries 보다 많이 실행되었는지
+ * 2. 같은 SQL이 n-plus-one-threshold번 이상 반복되었는지 (지연로딩 N + 1 의심)
+ * 운영에서는 경고 로그만 남기고 위반 횟수를 세고, 테스트에서는 fail-on-violation=true로 예외를 터뜨린다.
+ */
+@Slf4j
+@Component
+public class QueryCountPolicy {
+
+    private final int maxQueries;
+    private final int nPlusOneThreshold;
+    private final boolean failOnViolation;
+
+    private final AtomicLong violations = new AtomicLong();
+
+    public QueryCountPolicy(@Value("${datajpa.query-count.max-queries:30}") int maxQueries,
+                            @Value("${datajpa.query-count.n-plus-one-threshold:5}") int nPlusOneThreshold,
+                            @Value("${datajpa.query-count.fail-on-violation:false}") boolean failOnViolation) {
+        this.maxQueries = maxQueries;
+        this.nPlusOneThreshold = nPlusOneThreshold;
+        this.failOnViolation = failOnViolation;
+    }
+
+    public void inspect(String scope, QueryStatistics statistics) {
+        if (statistics == null) {
+            return;
+        }
+        log.debug("[{}] {}", scope, statistics);
+
+        StringBuilder message = new StringBuilder();
+        if (statistics.getCount() > maxQueries) {
+            message.append("쿼리 ").append(statistics.getCount()).append("번 실행 (최대 ").append(maxQueries).append(")");
+        }
+        Map<String, Integer> repeated = statistics.repeatedStatements(nPlusOneThreshold);
+        repeated.forEach((sql, times) -> message.append("\nN + 1 의심 : ").append(times).append("번 반복 -> ").append(sql));
+
+        if (message.length() == 0) {
+            return;
+        }
+
+        violations.incrementAndGet();
+        String report = "[" + scope + "] " + message + " (총 " + statistics.getTotalMillis() + "ms)";
+        if (failOnViolation) {
+            throw new QueryCountExceededException(report);
+        }
+        log.warn(report);
+    }
+
+    public long getViolations() {
+        return violations.get();
+    }
+}
@@ -0,0 +1,37 @@
+package study.datajpa.sql;
+
+/**
+ * 스레드별 SQL 카운터
+ * start() ~ stop() 사이에 현재 스레드에서 실행된 SQL을 QueryCountListener가 기록한다.
+ * 웹 요청은 QueryCountInterceptor, @Transactional 메서드는 QueryCountAspect가 감싸주고
+ * 테스트에서는 직접 start/stop 해서 QueryCountPolicy로 검증하면 된다.
+ */
+public final class QueryCounter {
+
+    private static final ThreadLocal<QueryStatistics> CURRENT = new ThreadLocal<>();
+
+    private QueryCounter() {
+    }
+
+    //이미 측정중이면 false (바깥 범위가 측정 중이므로 안쪽에서는 stop 하면 안된다)
+    public static boolean start() {
+        if (CURRENT.get() != null) {
+            return false;
+        }
+        CURRENT.set(new QueryStatistics());
+        return true;
+    }
+
+    public static QueryStatistics stop() {
+        QueryStatistics statistics = CURRENT.get();
+        CURRENT.remove();
+        return statistics;
+    }
+
+    static void record(String sql, long elapsedNanos) {
+        QueryStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.record(sql, elapsedNanos);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package study.datajpa.sql;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 하나의 범위(HTTP 요청, 트랜잭션, 테스트 코드 블록)에서 실행된 SQL 통계
+ * 같은 SQL(파라미터 제외)이 여러번 반복되면 N + 1 을 의심할 수 있다.
+ */
+public class QueryStatistics {
+
+    private int count;
+    private long totalNanos;
+    private final Map<String, Integer> statementCounts = new LinkedHashMap<>();
+
+    void record(String sql, long elapsedNanos) {
+        count++;
+        totalNanos += elapsedNanos;
+        statementCounts.merge(sql, 1, Integer::sum);
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getTotalMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(totalNanos);
+    }
+
+    public Map<String, Integer> getStatementCounts() {
+        return statementCounts;
+    }
+
+    //threshold번 이상 반복된 SQL (N + 1 의심)
+    public Map<String, Integer> repeatedStatements(int threshold) {
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+        statementCounts.forEach((sql, times) -> {
+            if (times >= threshold) {
+                repeated.put(sql, times);
+            }
+        });
+        return repeated;
+    }
+
+    @Override
+    public String toString() {
+        return "QueryStatistics{count=" + count + ", totalMillis=" + getTotalMillis() + "}";
+    }
+}
@@ -0,0 +1,36 @@
+-- 스키마는 ddl-auto 대신 Flyway 마이그레이션으로 관리 (엔티티 매핑과 다르면 ddl-auto: validate에서 기동 실패)
+-- 시퀀스 increment는 @SequenceGenerator allocationSize와 같아야함
+
+create sequence member_seq start with 1 increment by 50;
+create sequence team_seq start with 1 increment by 50;
+
+create table team (
+    team_id bigint not null,
+    name varchar(255),
+    primary key (team_id)
+);
+
+create table member (
+    member_id bigint not null,
+    age integer not null,
+    username varchar(255),
+    team_id bigint,
+    primary key (member_id),
+    constraint fk_member_team foreign key (team_id) references team (team_id)
+);
+
+create table item (
+    id varchar(255) not null,
+    created_date timestamp,
+    primary key (id)
+);
+
+-- MemberRepository 조회 조건 기준
+-- username : findByUsername, findListByUsername, findByNames ...
+-- age : findByAge, bulkAgePlus
+-- username + age : findByUsernameAndAgeGreaterThan, findUser
+-- team_id : Team.members 지연로딩(batch fetch), 팀 조인
+create index idx_member_username on member (username);
+create index idx_member_age on member (age);
+create index idx_member_username_age on member (username, age);
+create index idx_member_team_id on member (team_id);
@@ -0,0 +1,65 @@
+package study.datajpa.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.sql.QueryCounter;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class MemberControllerTest {
+
+    @Autowired MockMvc mockMvc;
+    @Autowired MemberRepository memberRepository;
+
+    private Member member;
+
+    @AfterEach
+    public void cleanUp() {
+        QueryCounter.stop();
+        if (member != null) {
+            memberRepository.deleteById(member.getId());
+        }
+    }
+
+    //잘못된 커서는 클라이언트 오류 (400)
+    @Test
+    public void malformedCursor() throws Exception {
+        mockMvc.perform(get("/members/cursor").param("cursor", "not-a-cursor!"))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * MockMvc는 요청을 테스트 스레드에서 처리하므로 요청이 끝난 뒤 테스트 스레드에 카운터가 남아있으면 안된다.
+     * (남아있으면 그 스레드의 다음 요청은 SQL 개수 검사가 꺼진 채로 계속 누적된다.)
+     */
+    @Test
+    public void queryCounterNotLeakedByAsyncRequest() throws Exception {
+        member = memberRepository.save(new Member("asyncCounter", 10));
+
+        MvcResult result = mockMvc.perform(get("/members/async/" + member.getId()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(QueryCounter.start()).isTrue();
+        QueryCounter.stop();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string("asyncCounter"));
+
+        //같은 스레드에서 이어지는 동기 요청
+        mockMvc.perform(get("/members/" + member.getId()))
+                .andExpect(status().isOk());
+        assertThat(QueryCounter.start()).isTrue();
+    }
+}
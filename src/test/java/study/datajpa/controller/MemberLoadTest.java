@@ -0,0 +1,115 @@
+package study.datajpa.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.core.env.Environment;
+import study.datajpa.config.VirtualThreads;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * /members/{id} 부하 테스트 (기본은 건너뜀)
+ * 같은 테스트를 플랫폼 스레드 / 가상 스레드 모드로 각각 돌려서 처리량을 비교한다.
+ *   ./gradlew test --tests '*MemberLoadTest' -DloadTest=true
+ *   ./gradlew test --tests '*MemberLoadTest' -DloadTest=true -Ddatajpa.virtual-threads.enabled=true  (JDK 21 이상)
+ * 동시 요청 수 : -DloadTest.concurrency (기본 10000), 총 요청 수 : -DloadTest.requests (기본 동시 요청 수와 같음)
+ * 결과(requests/sec)는 로그로 남긴다. 캐리어 스레드 고정 확인은 -Djdk.tracePinnedThreads=short 를 같이 줄것
+ * /members/{id}는 near cache를 거치므로 끄고 측정한다. (켜면 캐시 히트만 재게 됨)
+ */
+@EnabledIfSystemProperty(named = "loadTest", matches = "true")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"server.tomcat.max-connections=20000", "server.tomcat.accept-count=10000",
+                "datajpa.near-cache.enabled=false"})
+class MemberLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(MemberLoadTest.class);
+
+    @LocalServerPort int port;
+    @Autowired MemberRepository memberRepository;
+    @Autowired Environment environment;
+
+    private final List<Long> ids = new ArrayList<>();
+
+    //다른 테스트와 같은 DB를 쓰므로 저장한 회원은 지운다.
+    @AfterEach
+    public void cleanUp() {
+        ids.forEach(memberRepository::deleteById);
+    }
+
+    @Test
+    public void findMemberUnderLoad() throws Exception {
+        int concurrency = Integer.getInteger("loadTest.concurrency", 10_000);
+        int requests = Integer.getInteger("loadTest.requests", concurrency);
+
+        for (int i = 0; i < 100; i++) {
+            ids.add(memberRepository.save(new Member("load" + i, i)).getId());
+        }
+
+        //클라이언트도 가능하면 가상 스레드로 (플랫폼 스레드 1만개는 클라이언트 쪽이 먼저 병목이 된다)
+        ExecutorService client = VirtualThreads.isSupported()
+                ? VirtualThreads.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(concurrency);
+        CountDownLatch ready = new CountDownLatch(1);
+        AtomicInteger failed = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>(requests);
+
+        for (int i = 0; i < requests; i++) {
+            Long id = ids.get(i % ids.size());
+            futures.add(client.submit(() -> {
+                ready.await();
+                if (get("/members/" + id) != 200) {
+                    failed.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        long start = System.nanoTime();
+        ready.countDown();
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                failed.incrementAndGet();
+            }
+        }
+        long nanos = System.nanoTime() - start;
+        client.shutdown();
+
+        log.info("virtualThreads = {}, requests = {}, failed = {}, requests/sec = {}, elapsed(ms) = {}",
+                environment.getProperty("datajpa.virtual-threads.enabled", "false"), requests, failed.get(),
+                requests * 1_000_000_000L / Math.max(nanos, 1), TimeUnit.NANOSECONDS.toMillis(nanos));
+
+        assertThat(failed.get()).isZero();
+    }
+
+    private int get(String path) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + path).openConnection();
+        connection.setConnectTimeout(30_000);
+        connection.setReadTimeout(60_000);
+        try (InputStream in = connection.getInputStream()) {
+            while (in.read() != -1) {
+                //응답 본문을 끝까지 읽어야 커넥션이 재사용된다.
+            }
+            return connection.getResponseCode();
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
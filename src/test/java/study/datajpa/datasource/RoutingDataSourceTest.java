@@ -0,0 +1,136 @@
+package study.datajpa.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 읽기/쓰기 분리 테스트
+ * H2 메모리 DB 여러개를 primary, 레플리카로 놓고 실제로 어느 DB의 커넥션을 받았는지 URL로 확인
+ */
+class RoutingDataSourceTest {
+
+    @AfterEach
+    public void tearDown() {
+        RoutingDataSource.clearLastWrite();
+    }
+
+    //readOnly 트랜잭션은 레플리카를 돌아가면서, 쓰기 트랜잭션은 primary
+    @Test
+    public void readOnlyGoesToReplicas() {
+        Fixture fixture = new Fixture(0, "replica1", "replica2");
+
+        List<String> reads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            reads.add(fixture.url(true));
+        }
+        String write = fixture.url(false);
+
+        assertThat(reads).allMatch(url -> url.contains("replica"));
+        assertThat(reads).contains(h2("replica1"), h2("replica2"));
+        assertThat(write).isEqualTo(h2("primary"));
+    }
+
+    //쓰기 커밋 직후의 읽기는 primary (read-your-writes)
+    @Test
+    public void readYourWrites() {
+        Fixture fixture = new Fixture(60_000, "replica1");
+
+        assertThat(fixture.url(true)).isEqualTo(h2("replica1"));
+        fixture.url(false);
+        assertThat(fixture.url(true)).isEqualTo(h2("primary"));
+    }
+
+    //커넥션을 못 얻는 레플리카는 건너뛰고, 전부 안되면 primary
+    @Test
+    public void failover() {
+        Fixture fixture = new Fixture(0, "tcp://localhost:1/down", "replica1");
+        for (int i = 0; i < 4; i++) {
+            assertThat(fixture.url(true)).isEqualTo(h2("replica1"));
+        }
+
+        Fixture allDown = new Fixture(0, "tcp://localhost:1/down");
+        assertThat(allDown.url(true)).isEqualTo(h2("primary"));
+    }
+
+    //앱이 실제로 쓰는 JpaTransactionManager(HibernateJpaDialect)도 트랜잭션 시작시 커넥션을 준비하므로
+    //readOnly 플래그가 첫 쿼리 전에 반영되는지 따로 확인
+    @Test
+    public void readOnlyWithJpaTransactionManager() {
+        Fixture fixture = new Fixture(RoutingDataSourceTest::jpaTransactionManager, 0, "replica1");
+
+        assertThat(fixture.url(true)).isEqualTo(h2("replica1"));
+        assertThat(fixture.url(false)).isEqualTo(h2("primary"));
+    }
+
+    private static String h2(String name) {
+        return name.startsWith("tcp:") ? "jdbc:h2:" + name : "jdbc:h2:mem:" + name;
+    }
+
+    private static DataSource dataSource(String name) {
+        String url = name.startsWith("tcp:") ? h2(name) : h2(name) + ";DB_CLOSE_DELAY=-1";
+        return new DriverManagerDataSource(url, "sa", "");
+    }
+
+    //엔티티, 스키마 없이 EntityManagerFactory만 (커넥션 URL만 보므로)
+    private static PlatformTransactionManager jpaTransactionManager(DataSource dataSource) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        properties.put("hibernate.temp.use_jdbc_metadata_defaults", false); //기동시 커넥션을 얻지 않도록
+
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setPackagesToScan(RoutingDataSourceTest.class.getPackage().getName());
+        factoryBean.setJpaPropertyMap(properties);
+        factoryBean.afterPropertiesSet();
+        return new JpaTransactionManager(factoryBean.getObject());
+    }
+
+    private static class Fixture {
+        private final TransactionTemplate tx;
+        private final JdbcTemplate jdbcTemplate;
+
+        private Fixture(long readYourWritesMillis, String... replicaNames) {
+            this(DataSourceTransactionManager::new, readYourWritesMillis, replicaNames);
+        }
+
+        private Fixture(Function<DataSource, PlatformTransactionManager> transactionManager,
+                        long readYourWritesMillis, String... replicaNames) {
+            Map<String, DataSource> replicas = new LinkedHashMap<>();
+            for (String name : replicaNames) {
+                replicas.put(name, dataSource(name));
+            }
+            DataSource dataSource = new LazyConnectionDataSourceProxy(
+                    new RoutingDataSource(dataSource("primary"), replicas, readYourWritesMillis, 60_000));
+            tx = new TransactionTemplate(transactionManager.apply(dataSource));
+            jdbcTemplate = new JdbcTemplate(dataSource);
+        }
+
+        //트랜잭션 안에서 실제로 받은 커넥션의 URL (세미콜론 뒤 옵션은 제거)
+        private String url(boolean readOnly) {
+            tx.setReadOnly(readOnly);
+            return tx.execute(status -> jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getURL().split(";")[0]));
+        }
+    }
+}
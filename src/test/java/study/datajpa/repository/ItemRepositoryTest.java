@@ -3,11 +3,16 @@ package study.datajpa.repository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.entity.Item;
 
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
+@Transactional //공유 DB(~/datajpa)에 item을 남기지 않도록 롤백
 class ItemRepositoryTest {
 
     @Autowired ItemRepository itemRepository;
@@ -20,4 +25,15 @@ class ItemRepositoryTest {
 
     }
 
-}
\ No newline at end of file
+    //이미 있는 id는 건너뛰고 없는 것만 insert
+    @Test
+    public void upsertAll() {
+        int first = itemRepository.upsertAll(Arrays.asList(new Item("upsert1"), new Item("upsert2")));
+        int second = itemRepository.upsertAll(Arrays.asList(new Item("upsert2"), new Item("upsert3")));
+
+        assertThat(first).isEqualTo(2);
+        assertThat(second).isEqualTo(1);
+        assertThat(itemRepository.findAllById(Arrays.asList("upsert1", "upsert2", "upsert3"))).hasSize(3);
+    }
+
+}
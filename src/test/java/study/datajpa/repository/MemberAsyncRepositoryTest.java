@@ -0,0 +1,39 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+
+//비동기 조회는 다른 스레드(다른 트랜잭션)에서 실행되므로 @Transactional 없이 커밋된 데이터로 테스트
+//롤백이 안되므로 저장한 회원은 테스트가 끝나면 지운다. (다른 테스트와 같은 DB를 씀)
+@SpringBootTest
+class MemberAsyncRepositoryTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired MemberAsyncRepository memberAsyncRepository;
+
+    private Member saved;
+
+    @AfterEach
+    public void cleanUp() {
+        if (saved != null) {
+            memberRepository.deleteById(saved.getId());
+        }
+    }
+
+    @Test
+    public void findByIdAsync() throws Exception {
+        saved = memberRepository.save(new Member("async1", 10));
+
+        Optional<Member> result = memberAsyncRepository.findById(saved.getId()).get();
+
+        assertThat(result).isPresent();
+        assertThat(result.get().getUsername()).isEqualTo("async1");
+    }
+}
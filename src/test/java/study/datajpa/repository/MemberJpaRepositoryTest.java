@@ -9,6 +9,7 @@ import org.springframework.test.annotation.Rollback;
 import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.entity.Member;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.*;
@@ -137,6 +138,20 @@ class MemberJpaRepositoryTest {
     }
 
 
+    //ScrollableResults로 한건씩 처리 테스트
+    @Test
+    public void scrollAll() {
+        memberJpaRepository.save(new Member("member1", 10));
+        memberJpaRepository.save(new Member("member2", 10));
+        long total = memberJpaRepository.count();
+
+        List<String> usernames = new ArrayList<>();
+        long scrolled = memberJpaRepository.scrollAll(100, member -> usernames.add(member.getUsername()));
+
+        assertThat(scrolled).isEqualTo(total);
+        assertThat(usernames).contains("member1", "member2");
+    }
+
     //순수 Jpa 벌크 업데이트 테스트
     @Test
     public void bulkUpdate() {
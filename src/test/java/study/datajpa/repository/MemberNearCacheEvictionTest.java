@@ -0,0 +1,109 @@
+package study.datajpa.repository;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.MemberSnapshot;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * near cache(MemberNearCache) 무효화 테스트
+ * near cache는 트랜잭션 밖에서만 쓰이므로 @Transactional(롤백)을 못쓴다. 만든 데이터는 테스트가 끝나면 직접 지운다.
+ */
+@SpringBootTest(properties = "datajpa.near-cache.ttl-millis=60000")
+class MemberNearCacheEvictionTest {
+
+    //다른 테스트 데이터와 겹치지 않는 나이 (bulkAgePlus는 age 이상을 전부 바꿈)
+    private static final int AGE = 1_500_000_000;
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired MemberNearCache memberNearCache;
+    @Autowired EntityManagerFactory emf;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    private final List<Long> memberIds = new ArrayList<>();
+
+    @AfterEach
+    public void cleanUp() {
+        new TransactionTemplate(transactionManager).execute(status -> {
+            memberIds.forEach(memberRepository::deleteById);
+            return null;
+        });
+    }
+
+    //리포지토리를 거치지 않는 변경감지 update도 캐시를 비워야함 (Hibernate 이벤트)
+    @Test
+    public void dirtyCheckingEvicts() {
+        Long id = saveMember("nearCache1");
+        assertThat(memberRepository.findByIdCached(id).get().getUsername()).isEqualTo("nearCache1");
+
+        new TransactionTemplate(transactionManager).execute(status -> {
+            memberRepository.findById(id).get().setUsername("nearCache1-changed");
+            return null;
+        });
+
+        assertThat(memberRepository.findByIdCached(id).get().getUsername()).isEqualTo("nearCache1-changed");
+    }
+
+    @Test
+    public void saveEvicts() {
+        Long id = saveMember("nearCache2");
+        assertThat(memberRepository.findByIdCached(id).get().getUsername()).isEqualTo("nearCache2");
+
+        Member member = memberRepository.findById(id).get(); //트랜잭션 밖이므로 준영속
+        member.setUsername("nearCache2-changed");
+        memberRepository.save(member);
+
+        assertThat(memberRepository.findByIdCached(id).get().getUsername()).isEqualTo("nearCache2-changed");
+    }
+
+    @Test
+    public void bulkUpdateEvicts() {
+        Long id = saveMember("nearCache3");
+        assertThat(memberRepository.findByIdCached(id).get().getAge()).isEqualTo(AGE);
+
+        memberRepository.bulkAgePlus(AGE);
+
+        assertThat(memberRepository.findByIdCached(id).get().getAge()).isEqualTo(AGE + 1);
+    }
+
+    //OSIV처럼 요청 동안 열려있는 영속성 컨텍스트가 있어도 조회한 Member를 남기지 않고 스냅샷만 돌려줌
+    @Test
+    public void cachedLookupDetaches() {
+        Long id = saveMember("nearCache4");
+        memberNearCache.evict(id);
+
+        EntityManager em = emf.createEntityManager();
+        TransactionSynchronizationManager.bindResource(emf, new EntityManagerHolder(em));
+        try {
+            MemberSnapshot snapshot = memberRepository.findByIdCached(id).get();
+
+            assertThat(snapshot.getId()).isEqualTo(id);
+            assertThat(snapshot.getUsername()).isEqualTo("nearCache4");
+            assertThat(em.unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+        } finally {
+            TransactionSynchronizationManager.unbindResource(emf);
+            em.close();
+        }
+    }
+
+    private Long saveMember(String username) {
+        Member member = new TransactionTemplate(transactionManager).execute(status ->
+                memberRepository.save(new Member(username, AGE)));
+        memberIds.add(member.getId());
+        return member.getId();
+    }
+}
@@ -0,0 +1,146 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.Test;
+import study.datajpa.dto.MemberSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * near cache 테스트 (DB 없이 loader 호출 횟수로 확인)
+ */
+class MemberNearCacheTest {
+
+    @Test
+    public void cacheUntilEvicted() {
+        MemberNearCache cache = new MemberNearCache(true, 60_000, 100);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(1L, id -> load(loads, id));
+        cache.get(1L, id -> load(loads, id));
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+
+        cache.evict(1L);
+        cache.get(1L, id -> load(loads, id));
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void expireAfterTtl() throws Exception {
+        MemberNearCache cache = new MemberNearCache(true, 10, 100);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(1L, id -> load(loads, id));
+        Thread.sleep(30);
+        cache.get(1L, id -> load(loads, id));
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    //없는 회원은 캐시하지 않음 (바로 다음에 저장될 수 있으므로)
+    @Test
+    public void notCacheEmpty() {
+        MemberNearCache cache = new MemberNearCache(true, 60_000, 100);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(cache.get(1L, id -> { loads.incrementAndGet(); return Optional.empty(); })).isEmpty();
+        assertThat(cache.get(1L, id -> { loads.incrementAndGet(); return Optional.empty(); })).isEmpty();
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(cache.size()).isZero();
+    }
+
+    //조회 도중에 evict가 일어나면 그 결과는 캐시에 넣지 않는다.
+    @Test
+    public void notCacheLoadStartedBeforeEvict() {
+        MemberNearCache cache = new MemberNearCache(true, 60_000, 100);
+
+        cache.get(1L, id -> {
+            cache.evictAll();
+            return Optional.of(new MemberSnapshot(id, "member" + id, 10));
+        });
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    public void singleFlight() throws Exception {
+        MemberNearCache cache = new MemberNearCache(true, 60_000, 100);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        List<Future<Optional<MemberSnapshot>>> futures = new ArrayList<>();
+        futures.add(executor.submit(() -> cache.get(1L, id -> {
+            loaderStarted.countDown();
+            await(release);
+            return load(loads, id);
+        })));
+        loaderStarted.await(5, TimeUnit.SECONDS);
+
+        //첫번째 조회가 끝나기 전에 같은 id로 들어온 조회는 DB에 가지 않고 기다린다.
+        for (int i = 0; i < 9; i++) {
+            futures.add(executor.submit(() -> cache.get(1L, id -> load(loads, id))));
+        }
+        while (cache.getCoalescedCount() < 9) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        for (Future<Optional<MemberSnapshot>> future : futures) {
+            assertThat(future.get(5, TimeUnit.SECONDS).get().getUsername()).isEqualTo("member1");
+        }
+        executor.shutdown();
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(cache.getCoalescedCount()).isEqualTo(9);
+    }
+
+    //첫번째 조회가 Error로 끝나도 기다리던 조회는 멈추지 않고 같은 에러를 받는다.
+    @Test
+    public void waitersReleasedWhenLoaderThrowsError() throws Exception {
+        MemberNearCache cache = new MemberNearCache(true, 60_000, 100);
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<Optional<MemberSnapshot>> first = executor.submit(() -> cache.get(1L, id -> {
+            loaderStarted.countDown();
+            await(release);
+            throw new Error("load failed");
+        }));
+        loaderStarted.await(5, TimeUnit.SECONDS);
+
+        Future<Optional<MemberSnapshot>> waiter = executor.submit(() -> cache.get(1L, id -> Optional.empty()));
+        while (cache.getCoalescedCount() < 1) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(Error.class);
+        assertThatThrownBy(() -> waiter.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(Error.class);
+        executor.shutdown();
+        assertThat(cache.size()).isZero();
+    }
+
+    private Optional<MemberSnapshot> load(AtomicInteger loads, Long id) {
+        loads.incrementAndGet();
+        return Optional.of(new MemberSnapshot(id, "member" + id, 10));
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -3,20 +3,33 @@ package study.datajpa.repository;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.annotation.Rollback;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.dto.CursorPage;
 import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.MemberSearchCondition;
 import study.datajpa.entity.Member;
 import study.datajpa.entity.Team;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -31,6 +44,9 @@ class MemberRepositoryTest {
     @PersistenceContext
     private EntityManager em;
 
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size}")
+    private int batchSize;
+
     @Test
     public void testMember() {
         //System.out.println("memberRepository = " + memberRepository.getClass());
@@ -155,6 +171,38 @@ class MemberRepositoryTest {
     }
 
 
+    //스트리밍 조회 테스트 - 트랜잭션 안에서 try-with-resources로 닫아줘야함
+    @Test
+    public void streamMemberDto() {
+        Team team = new Team("teamA");
+        teamRepository.save(team);
+        Member m1 = memberRepository.save(new Member("stream1", 10, team));
+
+        try (Stream<MemberDto> stream = memberRepository.streamMemberDto()) {
+            MemberDto dto = stream.filter(d -> d.getId().equals(m1.getId()))
+                    .findFirst()
+                    .get();
+            assertThat(dto.getTeamName()).isEqualTo("teamA");
+        }
+    }
+
+    //DTO 페이징 테스트 - 팀 없는 회원도 포함, 정렬은 Pageable 그대로
+    @Test
+    public void findMemberDtoPage() {
+        Team team = new Team("teamA");
+        teamRepository.save(team);
+        memberRepository.save(new Member("dto1", 10, team));
+        memberRepository.save(new Member("dto2", 10));
+
+        Page<MemberDto> page = memberRepository.findMemberDtoPage(
+                PageRequest.of(0, 100, Sort.by(Sort.Direction.DESC, "username")));
+
+        assertThat(page.getContent()).extracting("username").containsSubsequence("dto2", "dto1");
+        assertThat(page.getContent()).filteredOn(dto -> dto.getUsername().equals("dto1"))
+                .extracting("teamName").containsExactly("teamA");
+        assertThat(page.getTotalElements()).isEqualTo(memberRepository.count());
+    }
+
     @Test
     public void findByNames() {
         Member m1 = new Member("AAA",10);
@@ -170,6 +218,41 @@ class MemberRepositoryTest {
 
     }
 
+    @Test
+    public void findAllByIdsInOrder() {
+        Team team = teamRepository.save(new Team("multiGetTeam"));
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 1100; i++) { //청크(512) 3개로 나뉨
+            ids.add(memberRepository.save(new Member("multiGet" + i, i, team)).getId());
+        }
+        em.flush();
+        em.clear();
+
+        List<Long> request = new ArrayList<>(ids);
+        Collections.reverse(request);
+        request.add(ids.get(0)); //중복 id는 한번만
+        request.add(-1L);        //없는 id는 빠짐
+
+        List<Member> result = memberRepository.findAllByIdsInOrder(request);
+
+        List<Long> expected = new ArrayList<>(ids);
+        Collections.reverse(expected);
+        assertThat(result).extracting("id").containsExactlyElementsOf(expected);
+        assertThat(result.get(0).getTeam().getName()).isEqualTo("multiGetTeam");
+    }
+
+    @Test
+    public void findByNamesInOrder() {
+        String suffix = String.valueOf(System.nanoTime()); //@Rollback(false)라 다른 테스트 데이터와 겹치지 않게
+        Member m1 = memberRepository.save(new Member("CCC" + suffix, 10));
+        Member m2 = memberRepository.save(new Member("AAA" + suffix, 20));
+        Member m3 = memberRepository.save(new Member("CCC" + suffix, 30));
+
+        List<Member> result = memberRepository.findByNamesInOrder(Arrays.asList("CCC" + suffix, "none" + suffix, "AAA" + suffix));
+
+        assertThat(result).extracting("id").containsExactly(m1.getId(), m3.getId(), m2.getId());
+    }
+
     //반환타입 테스트
     @Test
     public void returnType() {
@@ -245,6 +328,153 @@ class MemberRepositoryTest {
         assertThat(page.hasNext()).isTrue(); //다음 페이지가 있냐
     }
 
+    //count 캐시 페이징 테스트 - save가 일어나면 캐시가 비워져서 바로 반영되어야함, 다른 나이는 세지 않음
+    @Test
+    public void pagingWithCountCache() {
+        //given
+        int age = 1_000_010;
+        memberRepository.save(new Member("member1", age));
+        memberRepository.save(new Member("member2", age));
+        memberRepository.save(new Member("other", age + 1));
+        PageRequest pageRequest = PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "username"));
+        long expected = em.createQuery("select count(m) from Member m where m.age = :age", Long.class)
+                .setParameter("age", age)
+                .getSingleResult();
+
+        //when
+        Page<Member> page = memberRepository.findByAgeWithCountCache(age, pageRequest);
+        memberRepository.save(new Member("member3", age));
+        Page<Member> afterSave = memberRepository.findByAgeWithCountCache(age, pageRequest);
+
+        //then
+        assertThat(page.getContent()).hasSize(1).extracting("age").containsOnly(age);
+        assertThat(page.getTotalElements()).isEqualTo(expected);
+        assertThat(afterSave.getTotalElements()).isEqualTo(expected + 1);
+    }
+
+    //키셋(커서) 페이징 테스트 - count 쿼리 없이 마지막 id 다음부터 가져옴
+    @Test
+    public void keysetPaging() {
+        //given
+        Member m1 = memberRepository.save(new Member("member1", 10));
+        Member m2 = memberRepository.save(new Member("member2", 10));
+        Member m3 = memberRepository.save(new Member("member3", 10));
+
+        //when
+        Slice<Member> first = memberRepository.findSliceByIdAfter(m1.getId() - 1, PageRequest.of(0, 2));
+        String cursor = CursorPage.of(first.map(MemberDto::new), MemberDto::getId).getNextCursor();
+        Slice<Member> second = memberRepository.findSliceByIdAfter(CursorPage.decodeCursor(cursor), PageRequest.of(0, 2));
+
+        //then
+        assertThat(first.getContent()).containsExactly(m1, m2);
+        assertThat(first.hasNext()).isTrue();
+        assertThat(CursorPage.decodeCursor(cursor)).isEqualTo(m2.getId());
+        assertThat(second.getContent().get(0)).isEqualTo(m3);
+    }
+
+
+    //읽기 전용 힌트로 조회한 엔티티는 값을 바꿔도 변경감지가 일어나지 않는다.
+    @Test
+    public void readOnlyQueryHint() {
+        //given
+        memberRepository.save(new Member("readOnly1", 10));
+        em.flush();
+        em.clear();
+
+        //when
+        Member member = memberRepository.findReadOnlyByUsername("readOnly1").get(0);
+        member.setUsername("changed");
+        em.flush();
+        em.clear();
+
+        //then
+        assertThat(memberRepository.findListByUsername("readOnly1")).hasSize(1);
+        assertThat(memberRepository.findListByUsername("changed")).isEmpty();
+    }
+
+    //기본 조회 메서드는 쓰기 트랜잭션 안에서 변경감지가 그대로 동작해야 한다.
+    @Test
+    public void defaultFinderDirtyChecking() {
+        String username = "dirty" + System.nanoTime();
+        memberRepository.save(new Member(username, 10));
+        em.flush();
+        em.clear();
+
+        Member member = memberRepository.findOptionalByUsername(username).get();
+        member.setAge(20);
+        em.flush();
+        em.clear();
+
+        assertThat(memberRepository.findMemberByUsername(username).getAge()).isEqualTo(20);
+    }
+
+    //사용자 정의 리포지토리 조회 메서드도 쓰기 트랜잭션 안에서는 변경감지가 동작해야 한다. (읽기 전용 힌트 X)
+    @Test
+    public void customFinderDirtyChecking() {
+        int age = 1_000_020;
+        Member saved = memberRepository.save(new Member("dirty" + System.nanoTime(), age));
+        em.flush();
+        em.clear();
+
+        Member member = memberRepository.findByAgeWithCountCache(age, PageRequest.of(0, 10)).getContent().stream()
+                .filter(m -> m.getId().equals(saved.getId()))
+                .findFirst().get();
+        member.setAge(age + 1);
+        em.flush();
+        em.clear();
+
+        assertThat(memberRepository.findById(saved.getId()).get().getAge()).isEqualTo(age + 1);
+    }
+
+    //사용자 정의 리포지토리 메서드도 트랜잭션 밖에서 호출하면 readOnly 트랜잭션 안에서 실행되어야 한다.
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void customFinderRunsInReadOnlyTransaction() {
+        String username = "readOnly" + System.nanoTime();
+        List<Boolean> readOnlyTransaction = new ArrayList<>();
+        MemberSearchCondition condition = new MemberSearchCondition() {
+            @Override
+            public String getUsername() {
+                //구현체 안에서 조건을 읽는 시점의 트랜잭션 상태
+                readOnlyTransaction.add(TransactionSynchronizationManager.isActualTransactionActive()
+                        && TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+                return username;
+            }
+        };
+
+        memberRepository.search(condition);
+
+        assertThat(readOnlyTransaction).isNotEmpty().containsOnly(true);
+    }
+
+    //multi-get도 트랜잭션 밖에서 호출하면 readOnly 트랜잭션 안에서 실행되어야 한다.
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void multiGetRunsInReadOnlyTransaction() {
+        List<Boolean> readOnlyTransaction = new ArrayList<>();
+
+        memberRepository.findAllByIdsInOrder(recording(Arrays.asList(1L, 2L), readOnlyTransaction));
+        memberRepository.findByNamesInOrder(recording(Arrays.asList("AAA", "BBB"), readOnlyTransaction));
+
+        assertThat(readOnlyTransaction).isNotEmpty().containsOnly(true);
+    }
+
+    //구현체 안에서 값을 꺼내는 시점의 트랜잭션 상태를 기록하는 컬렉션
+    private <T> Collection<T> recording(List<T> values, List<Boolean> readOnlyTransaction) {
+        return new AbstractCollection<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                readOnlyTransaction.add(TransactionSynchronizationManager.isActualTransactionActive()
+                        && TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+                return values.iterator();
+            }
+
+            @Override
+            public int size() {
+                return values.size();
+            }
+        };
+    }
 
     /**
      * Spring Data Jpa를 활용하여 벌크 수정하는 기능 테스트
@@ -268,6 +498,28 @@ class MemberRepositoryTest {
         assertThat(resultCount).isEqualTo(3);
     }
 
+    //청크 벌크 수정 - 수정된 회원만 준영속이 되고 나머지 영속 엔티티는 그대로
+    @Test
+    public void bulkUpdateInChunks() {
+        //given (다른 테스트 데이터와 겹치지 않게 큰 나이 사용)
+        Team team = teamRepository.save(new Team("bulkTeam"));
+        Member m1 = memberRepository.save(new Member("bulk1", 999, team));
+        Member m2 = memberRepository.save(new Member("bulk2", 1000, team));
+        Member m3 = memberRepository.save(new Member("bulk3", 1001, team));
+        em.flush();
+
+        //when
+        BulkUpdateResult result = memberRepository.bulkAgePlusInChunks(1000, 1, 1);
+
+        //then
+        assertThat(result.getUpdatedRows()).isEqualTo(2);
+        assertThat(em.contains(m1)).isTrue();
+        assertThat(em.contains(m2)).isFalse();
+        assertThat(em.contains(m3)).isFalse();
+        assertThat(em.contains(team)).isTrue();
+        assertThat(memberRepository.findById(m3.getId()).get().getAge()).isEqualTo(1002);
+    }
+
 
     /**
      * 엔티티 그래프 및 지연로딩 (fetch join)
@@ -335,6 +587,28 @@ class MemberRepositoryTest {
 
     }
 
+    //JPQL 검색 - 값만 다른 검색도 결과가 맞아야하고 Specification과 결과가 같아야함
+    @Test
+    public void search() {
+        //given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("s1", 10, teamA));
+        em.persist(new Member("s2", 20, teamA));
+        em.flush();
+        em.clear();
+
+        //when
+        MemberSearchCondition condition = new MemberSearchCondition("s1", "teamA", 5, null);
+        List<Member> first = memberRepository.search(condition);
+        List<Member> second = memberRepository.search(new MemberSearchCondition("s2", "teamA", 5, null));
+
+        //then
+        assertThat(first).extracting("username").containsExactly("s1");
+        assertThat(second).extracting("username").containsExactly("s2");
+        assertThat(memberRepository.findAll(MemberSpec.of(condition))).extracting("username").containsExactly("s1");
+    }
+
     //이너조인만 가능하고 아우터 조인은 안된다.
     @Test
     public void queryByExample() throws Exception {
@@ -368,6 +642,62 @@ class MemberRepositoryTest {
 
     }
 
+    //QBE 빠른 경로 - count 없이 Slice
+    @Test
+    public void queryByExampleSlice() {
+        //given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("qbe1", 0, teamA));
+        em.persist(new Member("qbe2", 0, teamA));
+        em.persist(new Member("qbe3", 0));
+        em.flush();
+        em.clear();
+
+        //when
+        Member probe = new Member("qbe");
+        probe.setTeam(new Team("teamA"));
+        ExampleMatcher matcher = ExampleMatcher.matching()
+                .withIgnorePaths("age")
+                .withStringMatcher(ExampleMatcher.StringMatcher.STARTING);
+        Slice<Member> first = memberRepository.findSliceByExample(Example.of(probe, matcher),
+                PageRequest.of(0, 1, Sort.by("username")));
+        Slice<Member> second = memberRepository.findSliceByExample(Example.of(probe, matcher),
+                PageRequest.of(1, 1, Sort.by("username")));
+
+        //then (팀이 없는 qbe3는 조인 때문에 빠짐)
+        assertThat(first.getContent()).extracting("username").containsExactly("qbe1");
+        assertThat(first.hasNext()).isTrue();
+        assertThat(second.getContent()).extracting("username").containsExactly("qbe2");
+        assertThat(second.hasNext()).isFalse();
+    }
+
+    //프로브의 팀이 프록시(getReference)여도 팀 조건이 빠지면 안된다.
+    @Test
+    public void queryByExampleWithProxyProbe() {
+        //given
+        String suffix = String.valueOf(System.nanoTime());
+        Team teamA = new Team("proxyTeamA" + suffix);
+        Team teamB = new Team("proxyTeamB" + suffix);
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("qbeProxy1" + suffix, 0, teamA));
+        em.persist(new Member("qbeProxy2" + suffix, 0, teamB));
+        em.flush();
+        em.clear();
+
+        //when
+        Member probe = new Member("qbeProxy");
+        probe.setTeam(em.getReference(Team.class, teamA.getId()));
+        ExampleMatcher matcher = ExampleMatcher.matching()
+                .withIgnorePaths("age")
+                .withStringMatcher(ExampleMatcher.StringMatcher.STARTING);
+        Slice<Member> result = memberRepository.findSliceByExample(Example.of(probe, matcher), PageRequest.of(0, 10));
+
+        //then
+        assertThat(result.getContent()).extracting("username").containsExactly("qbeProxy1" + suffix);
+    }
+
     //한계 : 조인이 들어가는순간 root Entity는 최적화되지만 두번째는 모든 필드를 가져옴
     // 프로젝션 대상이 root엔티티이면 유용하다.
 
@@ -426,9 +756,111 @@ class MemberRepositoryTest {
 
     }
 
+    //생성된 프로젝션 구현체 - Open Projection(UsernameOnly)과 결과가 같아야함
+    @Test
+    public void generatedProjection() {
+        em.persist(new Member("generated1", 11));
+        em.flush();
+        em.clear();
+
+        List<UsernameOnlyView> result = memberRepository.findUsernameOnlyViewByUsername("generated1");
+        List<UsernameOnly> spel = memberRepository.findProjectionsByUsername("generated1", UsernameOnly.class);
 
+        assertThat(result.get(0)).isInstanceOf(UsernameOnlyViewImpl.class);
+        assertThat(result.get(0).getUsername()).isEqualTo(spel.get(0).getUsername());
+    }
 
+    //JDBC RowMapper 프로젝션 - 스프링 데이터 프로젝션(프록시)과 값이 같아야함, flush 전 데이터도 보여야함
+    @Test
+    public void projectionRowMapper() {
+        //given (flush하지 않음)
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("mapper1", 7, teamA));
+        em.persist(new Member("mapper2", 8));
 
+        //when
+        List<NestedClosedProjections> nested = memberRepository.findNestedClosedProjectionsByUsername("mapper1");
+        List<NestedClosedProjections> noTeam = memberRepository.findNestedClosedProjectionsByUsername("mapper2");
+        List<UsernameOnly> usernameOnly = memberRepository.findUsernameOnlyByUsername("mapper1");
+        List<UsernameOnly> proxy = memberRepository.findProjectionsByUsername("mapper1", UsernameOnly.class);
+        long count = memberRepository.forEachNativeProjection(p -> {});
 
+        //then
+        assertThat(nested.get(0).getTeam().getName()).isEqualTo("teamA");
+        assertThat(noTeam.get(0).getTeam()).isNull();
+        assertThat(usernameOnly.get(0).getUsername()).isEqualTo(proxy.get(0).getUsername());
+        assertThat(count).isEqualTo(memberRepository.count());
+    }
 
-}
\ No newline at end of file
+    //JDBC 네이티브 프로젝션 정렬 - 가능한 속성은 정렬해서, 그 외 속성은 무시하지 않고 예외
+    @Test
+    public void nativeProjectionSort() {
+        //given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("sort1", 10, teamB));
+        em.persist(new Member("sort2", 10, teamA));
+
+        //when
+        List<String> teamNames = new ArrayList<>();
+        List<String> usernames = new ArrayList<>();
+        for (MemberProjection projection : memberRepository.findByNativeProjectionWithCountCache(
+                PageRequest.of(0, 10_000, Sort.by(Sort.Direction.DESC, "teamName")))) {
+            teamNames.add(projection.getTeamName());
+            usernames.add(projection.getUsername());
+        }
+
+        //then (팀이 없는 회원(null)은 H2에서 desc일때 마지막)
+        List<String> sorted = new ArrayList<>(teamNames);
+        sorted.sort(Comparator.nullsLast(Comparator.<String>reverseOrder()));
+        assertThat(teamNames).isEqualTo(sorted);
+        assertThat(usernames.indexOf("sort1")).isLessThan(usernames.indexOf("sort2"));
+        assertThatThrownBy(() -> memberRepository.findByNativeProjectionWithCountCache(PageRequest.of(0, 10, Sort.by("age"))))
+                .isInstanceOf(InvalidDataAccessApiUsageException.class)
+                .hasRootCauseInstanceOf(IllegalArgumentException.class);
+    }
+
+    //대량 저장 - batch_size마다 flush + clear, 저장한 건수 반환, 끝나면 모두 준영속
+    @Test
+    @Rollback
+    public void saveAllInBatch() {
+        //given
+        int rows = batchSize * 2 + 10;
+        String username = "batch" + System.nanoTime();
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            members.add(new Member(username, i));
+        }
+
+        //batchSize개를 넘겨준 직후(다음 건을 꺼낼때) 앞에서 저장한 엔티티는 이미 flush + clear 되어 있어야함
+        List<Boolean> firstManagedAtBatchBoundary = new ArrayList<>();
+        Iterable<Member> iterable = () -> new Iterator<Member>() {
+            int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < rows;
+            }
+
+            @Override
+            public Member next() {
+                if (index == batchSize) {
+                    firstManagedAtBatchBoundary.add(em.contains(members.get(0)));
+                }
+                return members.get(index++);
+            }
+        };
+
+        //when
+        int saved = memberRepository.saveAllInBatch(iterable);
+
+        //then
+        assertThat(saved).isEqualTo(rows);
+        assertThat(firstManagedAtBatchBoundary).containsExactly(false);
+        assertThat(members).allMatch(member -> member.getId() != null && !em.contains(member));
+        assertThat(memberRepository.findByUsername(username)).hasSize(rows);
+    }
+}
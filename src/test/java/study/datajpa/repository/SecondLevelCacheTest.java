@@ -0,0 +1,82 @@
+package study.datajpa.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 2차 캐시 테스트 (cache 프로필)
+ * 2차 캐시는 트랜잭션(영속성 컨텍스트)을 넘어서 공유되므로 트랜잭션을 나눠서 확인해야한다.
+ * 그래서 @Transactional(롤백)을 못쓰므로 만든 데이터는 테스트가 끝나면 직접 지운다. (다른 테스트와 같은 DB를 씀)
+ */
+@SpringBootTest
+@ActiveProfiles("cache")
+class SecondLevelCacheTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamRepository teamRepository;
+    @Autowired EntityManagerFactory emf;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    private final List<Long> memberIds = new ArrayList<>();
+    private final List<Long> teamIds = new ArrayList<>();
+
+    @AfterEach
+    public void cleanUp() {
+        new TransactionTemplate(transactionManager).execute(status -> {
+            memberIds.forEach(memberRepository::deleteById);
+            teamIds.forEach(teamRepository::deleteById);
+            return null;
+        });
+    }
+
+    @Test
+    public void teamEntityCache() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Team team = tx.execute(status -> teamRepository.save(new Team("cacheTeam")));
+        teamIds.add(team.getId());
+
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        //영속성 컨텍스트는 트랜잭션마다 새로 만들어지므로 두번째부터는 DB가 아닌 2차 캐시에서 가져옴
+        tx.execute(status -> teamRepository.findById(team.getId()).get());
+        tx.execute(status -> teamRepository.findById(team.getId()).get());
+
+        System.out.println("hit = " + statistics.getSecondLevelCacheHitCount()
+                + ", miss = " + statistics.getSecondLevelCacheMissCount());
+        assertThat(statistics.getSecondLevelCacheHitCount()).isGreaterThan(0);
+    }
+
+    //벌크 연산은 영속성 컨텍스트를 거치지 않지만 Hibernate가 쿼리 캐시를 무효화 해줘야함
+    @Test
+    public void queryCacheAfterBulkUpdate() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        String username = "cacheUser" + System.nanoTime();
+        //bulkAgePlus(age)는 age 이상인 회원을 전부 수정하므로 다른 테스트 데이터가 걸리지 않게 큰 나이를 쓴다.
+        int age = 1_000_000;
+        memberIds.add(tx.execute(status -> memberRepository.save(new Member(username, age))).getId());
+
+        //쿼리 캐시에 올림
+        tx.execute(status -> memberRepository.findByUsername(username));
+
+        tx.execute(status -> memberRepository.bulkAgePlus(age));
+
+        Member member = tx.execute(status -> memberRepository.findByUsername(username).get(0));
+        assertThat(member.getAge()).isEqualTo(age + 1);
+    }
+}
@@ -0,0 +1,109 @@
+package study.datajpa.shard;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
+import org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy;
+import org.springframework.boot.orm.jpa.hibernate.SpringPhysicalNamingStrategy;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import study.datajpa.entity.Member;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 샤딩 테스트 - H2 메모리 DB 3개를 샤드로 사용
+ * 스프링 컨텍스트를 띄우지 않고 샤드를 직접 만든다. (샤드 DB만 필요하므로 공유 DB(~/datajpa)는 건드리지 않음)
+ */
+class ShardedMemberRepositoryTest {
+
+    static ShardedMemberRepository shardedMemberRepository;
+
+    @BeforeAll
+    public static void setUp() {
+        ShardProperties shardProperties = new ShardProperties();
+        shardProperties.setUrls(Arrays.asList(
+                "jdbc:h2:mem:shard0;DB_CLOSE_DELAY=-1",
+                "jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1",
+                "jdbc:h2:mem:shard2;DB_CLOSE_DELAY=-1"));
+
+        //스프링 부트가 넣어주는 네이밍 전략 + 스키마 검증
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(AvailableSettings.PHYSICAL_NAMING_STRATEGY, SpringPhysicalNamingStrategy.class.getName());
+        properties.put(AvailableSettings.IMPLICIT_NAMING_STRATEGY, SpringImplicitNamingStrategy.class.getName());
+        properties.put(AvailableSettings.HBM2DDL_AUTO, "validate");
+        properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, "false");
+        EntityManagerFactoryBuilder builder = new EntityManagerFactoryBuilder(
+                new HibernateJpaVendorAdapter(), new HashMap<>(), null);
+
+        List<Shard> shards = new ArrayList<>();
+        for (int i = 0; i < shardProperties.getUrls().size(); i++) {
+            shards.add(ShardConfig.createShard(i, shardProperties, builder, properties));
+        }
+        shardedMemberRepository = new ShardedMemberRepository(shards);
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        shardedMemberRepository.close();
+    }
+
+    @Test
+    public void routingAndScatterGather() {
+        //given
+        List<Member> saved = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            saved.add(shardedMemberRepository.save(new Member("shard" + i, i % 3)));
+        }
+
+        //then - id만 보고 저장된 샤드를 찾을 수 있어야함
+        Set<Integer> usedShards = new HashSet<>();
+        for (Member member : saved) {
+            int shard = shardedMemberRepository.shardOf(member.getId());
+            usedShards.add(shard);
+            assertThat(shardedMemberRepository.findById(member.getId()).get().getUsername()).isEqualTo(member.getUsername());
+            assertThat(shardedMemberRepository.findByUsername(member.getUsername())).hasSize(1);
+        }
+        assertThat(usedShards).hasSize(3);
+        assertThat(shardedMemberRepository.count()).isEqualTo(30);
+
+        //전체 정렬 결과에서 잘라낸 것과 같아야함
+        List<String> expected = saved.stream().map(Member::getUsername).sorted(Comparator.reverseOrder())
+                .skip(5).limit(5).collect(Collectors.toList());
+        Page<Member> page = shardedMemberRepository.findAll(PageRequest.of(1, 5, Sort.by(Sort.Direction.DESC, "username")));
+        assertThat(page.getContent()).extracting("username").containsExactlyElementsOf(expected);
+        assertThat(page.getTotalElements()).isEqualTo(30);
+
+        Page<Member> byAge = shardedMemberRepository.findByAge(1, PageRequest.of(0, 100));
+        assertThat(byAge.getTotalElements()).isEqualTo(10);
+        assertThat(byAge.getContent()).extracting("age").containsOnly(1);
+
+        //이름을 바꿔도(원래 샤드에 그대로 있어도) username으로 찾을 수 있어야함
+        Member member = saved.get(0);
+        ShardRouter router = new ShardRouter(shardedMemberRepository.getShardCount());
+        String renamed = "renamed";
+        for (int i = 0; router.shardOf(renamed) == shardedMemberRepository.shardOf(member.getId()); i++) {
+            renamed = "renamed" + i;
+        }
+        member.setUsername(renamed);
+        shardedMemberRepository.save(member);
+
+        assertThat(shardedMemberRepository.findByUsername(renamed)).extracting("id").containsExactly(member.getId());
+        assertThat(shardedMemberRepository.findByUsername("shard0")).isEmpty();
+        assertThat(shardedMemberRepository.count()).isEqualTo(30);
+    }
+}
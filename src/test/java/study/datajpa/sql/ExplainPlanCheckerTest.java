@@ -0,0 +1,56 @@
+package study.datajpa.sql;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * db/migration의 인덱스로 리포지토리 대표 쿼리가 모두 인덱스를 타는지 확인
+ * 실행 계획은 리포지토리에 선언된 JPQL을 Hibernate가 변환한 SQL로 확인한다. (쿼리는 실행하지 않음)
+ */
+@SpringBootTest(properties = "datajpa.schema.explain-check=true")
+class ExplainPlanCheckerTest {
+
+    @Autowired ExplainPlanChecker explainPlanChecker;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void noFullScan() {
+        assertThat(explainPlanChecker.findFullScans()).isEmpty();
+    }
+
+    @Test
+    public void explainGeneratedSql() {
+        Map<String, List<String>> plans = explainPlanChecker.explainAll();
+
+        assertThat(plans.get("MemberRepository.findByUsername"))
+                .anyMatch(plan -> plan.contains("IDX_MEMBER_USERNAME"));
+        assertThat(plans.get("Team.members (batch fetch)"))
+                .isNotEmpty()
+                .noneMatch(plan -> plan.contains(".tableScan"));
+        assertThat(plans.get("MemberRepository.findByAgeWithCountCache"))
+                .isNotEmpty()
+                .noneMatch(plan -> plan.contains(".tableScan"));
+    }
+
+    //EXPLAIN만 하므로 데이터, 시퀀스가 바뀌지 않아야 한다. (bulkAgePlus update도 실행 X)
+    @Test
+    public void explainDoesNotRunQueries() {
+        String snapshot = "select (select count(*) from member) as member_count," +
+                " (select coalesce(sum(age), 0) from member) as age_sum," +
+                " (select current_value from information_schema.sequences where sequence_name = 'MEMBER_SEQ') as member_seq";
+        List<Object> before = jdbcTemplate.queryForList(snapshot).get(0).values().stream().collect(Collectors.toList());
+
+        Map<String, List<String>> plans = explainPlanChecker.explainAll();
+
+        assertThat(plans.get("MemberRepository.bulkAgePlus")).isNotEmpty();
+        assertThat(jdbcTemplate.queryForList(snapshot).get(0).values()).containsExactlyElementsOf(before);
+    }
+}
@@ -0,0 +1,33 @@
+package study.datajpa.sql;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.repository.MemberRepository;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+class QueryCountListenerTest {
+
+    @Autowired MeterRegistry meterRegistry;
+    @Autowired MemberRepository memberRepository;
+
+    //실행한 SQL이 종류별 타이머에 기록되어야함
+    @Test
+    public void sqlTimer() {
+        memberRepository.count();
+
+        Timer timer = meterRegistry.find("datajpa.sql").tag("type", "select").tag("outcome", "success").timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isGreaterThan(0);
+    }
+
+    //커넥션 풀 메트릭은 스프링 부트가 등록
+    @Test
+    public void hikariMetrics() {
+        assertThat(meterRegistry.find("hikaricp.connections.active").gauge()).isNotNull();
+    }
+}
@@ -0,0 +1,115 @@
+package study.datajpa.sql;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 테스트에서는 fail-on-violation=true로 두고 N + 1이 생기면 테스트가 깨지도록 한다.
+ */
+@SpringBootTest(properties = {
+        "datajpa.query-count.fail-on-violation=true",
+        "datajpa.query-count.n-plus-one-threshold=3"
+})
+@Transactional
+class QueryCountPolicyTest {
+
+    @PersistenceContext EntityManager em;
+    @Autowired QueryCountPolicy queryCountPolicy;
+
+    //같은 SQL이 threshold번 이상 반복되면 N + 1로 보고 실패
+    @Test
+    public void repeatedStatementFails() {
+        QueryStatistics statistics = new QueryStatistics();
+        for (int i = 0; i < 3; i++) {
+            statistics.record("select t from team t where t.team_id=?", 1000);
+        }
+
+        assertThatThrownBy(() -> queryCountPolicy.inspect("repeated", statistics))
+                .isInstanceOf(QueryCountExceededException.class);
+    }
+
+    //팀마다 select가 나가던 지연로딩이 batch fetch로 IN 쿼리 한번이 된다.
+    @Test
+    public void lazyLoadingWithBatchFetch() {
+        //given
+        String username = saveMembersWithOwnTeam(3);
+
+        //when
+        QueryCounter.start();
+        List<Member> members = em.createQuery("select m from Member m where m.username = :username", Member.class)
+                .setParameter("username", username)
+                .getResultList();
+        for (Member member : members) {
+            member.getTeam().getName();
+        }
+        QueryStatistics statistics = QueryCounter.stop();
+
+        //then
+        assertThat(statistics.getCount()).isEqualTo(2); // 멤버 1번 + 팀 IN 쿼리 1번
+        queryCountPolicy.inspect("batchFetch", statistics);
+    }
+
+    //팀 페이징 후 members 컬렉션도 IN 쿼리 한번
+    @Test
+    public void collectionBatchFetchWithPaging() {
+        //given
+        String username = saveMembersWithOwnTeam(3);
+
+        //when
+        QueryCounter.start();
+        List<Team> teams = em.createQuery("select distinct t from Team t join t.members m where m.username = :username", Team.class)
+                .setParameter("username", username)
+                .setFirstResult(0)
+                .setMaxResults(3)
+                .getResultList();
+        for (Team team : teams) {
+            assertThat(team.getMembers().size()).isEqualTo(1);
+        }
+        QueryStatistics statistics = QueryCounter.stop();
+
+        //then
+        assertThat(statistics.getCount()).isEqualTo(2); // 팀 페이징 1번 + 멤버 IN 쿼리 1번
+    }
+
+    @Test
+    public void fetchJoinIsOneQuery() {
+        //given
+        String username = saveMembersWithOwnTeam(3);
+
+        //when
+        QueryCounter.start();
+        List<Member> members = em.createQuery("select m from Member m join fetch m.team where m.username = :username", Member.class)
+                .setParameter("username", username)
+                .getResultList();
+        for (Member member : members) {
+            member.getTeam().getName();
+        }
+        QueryStatistics statistics = QueryCounter.stop();
+
+        //then
+        assertThat(statistics.getCount()).isEqualTo(1);
+        queryCountPolicy.inspect("fetchJoin", statistics);
+    }
+
+    private String saveMembersWithOwnTeam(int count) {
+        String username = "counter" + System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            em.persist(new Member(username, i, team));
+        }
+        em.flush();
+        em.clear();
+        return username;
+    }
+}